@@ -0,0 +1,96 @@
+package com.elysion.benchmark;
+
+import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceView;
+import com.elysion.domain.User;
+import com.elysion.domain.UserProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson-Serialisierung der typischen Response-Bodies.
+ * Der Mapper ist wie der Quarkus-Default konfiguriert (JavaTime, Datum als ISO-String).
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerializationBenchmark {
+
+    ObjectMapper mapper;
+    User user;
+    UserProfile profile;
+    List<PreferenceView> preferences;
+    Map<String, Importance> preferenceMap;
+    Map<String, String> tokenBody;
+    Map<String, String> messageBody;
+
+    @Setup
+    public void setup() {
+        mapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .build();
+
+        user = new User(UUID.randomUUID(), "alice@example.com",
+                "$2a$12$M8Q35jYDH0VxrQEAHR4OOOyNKG8G5SZSmMzhURXSgvYv8FY4oDvya",
+                "bEg+eoewDQ9jlY7Jom9mMQ==", "User", OffsetDateTime.now());
+        user.firstName = "Alice";
+        user.lastName = "Doe";
+        user.active = true;
+        profile = UserProfile.from(user);
+
+        Importance[] values = Importance.values();
+        preferences = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            preferences.add(new PreferenceView("filter-" + i, values[i % values.length]));
+        }
+        preferenceMap = Map.of("bio", Importance.IMPORTANT, "ethical-work", Importance.SOMEWHAT_IMPORTANT,
+                "vegan", Importance.VERY_IMPORTANT, "local", Importance.NOT_IMPORTANT);
+        tokenBody = Map.of("token", "eyJ0eXAiOiJKV1QiLCJhbGciOiJSUzI1NiJ9.eyJpc3MiOiJlbHlzaW9uLXVzZXItc2VydmljZSJ9.sig");
+        messageBody = Map.of("message", "Profile updated");
+    }
+
+    @Benchmark
+    public byte[] user() throws Exception {
+        return mapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] userProfile() throws Exception {
+        return mapper.writeValueAsBytes(profile);
+    }
+
+    @Benchmark
+    public byte[] preferenceList() throws Exception {
+        return mapper.writeValueAsBytes(preferences);
+    }
+
+    @Benchmark
+    public byte[] preferenceMap() throws Exception {
+        return mapper.writeValueAsBytes(preferenceMap);
+    }
+
+    @Benchmark
+    public byte[] tokenResponse() throws Exception {
+        return mapper.writeValueAsBytes(tokenBody);
+    }
+
+    @Benchmark
+    public byte[] messageResponse() throws Exception {
+        return mapper.writeValueAsBytes(messageBody);
+    }
+}
@@ -0,0 +1,88 @@
+package com.elysion.benchmark;
+
+import com.elysion.application.UserService;
+import com.elysion.config.SigningKeysConfig;
+import com.elysion.domain.User;
+import com.elysion.security.SigningKeyRing;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signieren eines Login-JWT (RS256) über {@link UserService#generateJwt(User)}.
+ * Der Signatur-Key kommt wie im Service aus META-INF/resources/privateKey.pem (kid "1").
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    UserService userService;
+    User user;
+
+    @Setup
+    public void setup() throws Exception {
+        SigningKeyRing keyRing = new SigningKeyRing();
+        inject(keyRing, "config", new SigningKeysConfig() {
+            @Override
+            public Map<String, Key> keys() {
+                return Map.of("1", new Key() {
+                    @Override
+                    public String location() {
+                        return "META-INF/resources/privateKey.pem";
+                    }
+
+                    @Override
+                    public Optional<Instant> activeFrom() {
+                        return Optional.empty();
+                    }
+
+                    @Override
+                    public Optional<Instant> retireAt() {
+                        return Optional.empty();
+                    }
+                });
+            }
+
+            @Override
+            public String legacyKid() {
+                return "1";
+            }
+
+            @Override
+            public Duration jwksMaxAge() {
+                return Duration.ofMinutes(5);
+            }
+        });
+        Method init = SigningKeyRing.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(keyRing);
+
+        userService = new UserService();
+        inject(userService, "keyRing", keyRing);
+        user = new User(UUID.randomUUID(), "alice@example.com", "hash", "salt", "Seller", OffsetDateTime.now());
+    }
+
+    /** Ersatz für die CDI-Feldinjektion (Felder sind package-private) */
+    private static void inject(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+
+    @Benchmark
+    public String generateJwt() {
+        return userService.generateJwt(user);
+    }
+}
@@ -0,0 +1,53 @@
+package com.elysion.benchmark;
+
+import com.elysion.security.PasswordService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt-Kosten von hash/verify je Cost sowie die Salt-Erzeugung.
+ * PEPPER wird vom jmh-Profil als Umgebungsvariable gesetzt.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class PasswordServiceBenchmark {
+
+    @Param({"10", "12"})
+    int cost;
+
+    PasswordService passwordService;
+    String salt;
+    String storedHash;
+
+    @Setup
+    public void setup() {
+        passwordService = new PasswordService();
+        passwordService.setRounds(cost);
+        salt = passwordService.generateSalt();
+        storedHash = passwordService.hashPassword("Str0ngP@ssword!", salt);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String hashPassword() {
+        return passwordService.hashPassword("Str0ngP@ssword!", salt);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean verifyPassword() {
+        return passwordService.verifyPassword("Str0ngP@ssword!", salt, storedHash);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String generateSalt() {
+        return passwordService.generateSalt();
+    }
+}
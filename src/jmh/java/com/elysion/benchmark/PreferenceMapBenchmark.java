@@ -0,0 +1,54 @@
+package com.elysion.benchmark;
+
+import com.elysion.application.UserSustainabilityPrefService;
+import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserSustainabilityPrefService#getPreferenceMap(UUID)} gegen eine In-Memory-Fixture
+ * (ohne DB: {@code getPreferences} wird überschrieben).
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PreferenceMapBenchmark {
+
+    @Param({"12"})
+    int filterCount;
+
+    UserSustainabilityPrefService prefService;
+    UUID userId;
+
+    @Setup
+    public void setup() {
+        userId = UUID.randomUUID();
+
+        Importance[] values = Importance.values();
+        List<PreferenceView> fixture = new ArrayList<>(filterCount);
+        for (int i = 0; i < filterCount; i++) {
+            fixture.add(new PreferenceView("filter-" + i, values[i % values.length]));
+        }
+
+        prefService = new UserSustainabilityPrefService() {
+            @Override
+            public List<PreferenceView> getPreferences(UUID id) {
+                return fixture;
+            }
+        };
+    }
+
+    @Benchmark
+    public Map<String, Importance> getPreferenceMap() {
+        return prefService.getPreferenceMap(userId);
+    }
+}
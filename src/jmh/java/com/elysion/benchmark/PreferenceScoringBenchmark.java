@@ -0,0 +1,76 @@
+package com.elysion.benchmark;
+
+import com.elysion.application.PreferenceScoringService;
+import com.elysion.domain.FilterCatalog;
+import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceVector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PreferenceScoringService#score(FilterCatalog, PreferenceVector, java.io.InputStream)} für eine
+ * Suchseite: Parsen des Bodys plus Scoring, ohne DB (Katalog und Vektor als Fixture).
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreferenceScoringBenchmark {
+
+    @Param({"500", "5000"})
+    int productCount;
+
+    @Param({"12"})
+    int filterCount;
+
+    PreferenceScoringService scoringService;
+    FilterCatalog catalog;
+    PreferenceVector vector;
+    byte[] body;
+
+    @Setup
+    public void setup() {
+        Importance[] values = Importance.values();
+        List<FilterCatalog.Entry> entries = new ArrayList<>(filterCount);
+        long[] words = new long[PreferenceVector.wordsFor(filterCount)];
+        for (int i = 0; i < filterCount; i++) {
+            entries.add(new FilterCatalog.Entry(UUID.randomUUID(), "filter-" + i, i, "Filter " + i, "icon",
+                    "", "", Importance.IMPORTANT));
+            if (i % 3 != 0) {
+                PreferenceVector.set(words, i, values[i % values.length]);
+            }
+        }
+        catalog = new FilterCatalog(1, entries);
+        vector = PreferenceVector.wrap(words);
+        scoringService = new PreferenceScoringService();
+
+        // Je Produkt 0-5 zufällige Filter, gelegentlich ein unbekannter Key
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"products\":[");
+        for (int p = 0; p < productCount; p++) {
+            json.append(p == 0 ? "[" : ",[");
+            int n = random.nextInt(6);
+            for (int k = 0; k < n; k++) {
+                json.append(k == 0 ? "\"" : ",\"")
+                        .append(random.nextInt(20) == 0 ? "unknown" : "filter-" + random.nextInt(filterCount))
+                        .append('"');
+            }
+            json.append(']');
+        }
+        body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PreferenceScoringService.Scores score() {
+        return scoringService.score(catalog, vector, new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,28 @@
+package com.elysion.application;
+
+/**
+ * Invalidierungs-Nachricht für lokale Caches (CDI-Event).
+ * Wird über den {@link CacheInvalidationBus} auch an alle anderen Instanzen verteilt.
+ *
+ * @param region betroffener Cache-Bereich
+ * @param key    betroffener Eintrag (z.B. User-ID) oder null für den ganzen Bereich
+ */
+public record CacheInvalidation(Region region, String key) {
+
+    public enum Region {
+        USER,
+        PREFERENCES,
+        FILTERS,
+        /** Alles verwerfen (z.B. nach verpassten Nachrichten) */
+        ALL
+    }
+
+    public static CacheInvalidation all() {
+        return new CacheInvalidation(Region.ALL, null);
+    }
+
+    /** true, wenn ein Cache für {@code r} diesen Eintrag verwerfen muss */
+    public boolean affects(Region r) {
+        return region == Region.ALL || region == r;
+    }
+}
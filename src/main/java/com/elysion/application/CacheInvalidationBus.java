@@ -0,0 +1,230 @@
+package com.elysion.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Verteilt Cache-Invalidierungen zwischen allen Instanzen über Postgres LISTEN/NOTIFY.
+ * <p>
+ * Senden: {@code pg_notify} läuft in der aktuellen Transaktion und wird von Postgres erst beim
+ * Commit zugestellt (bei Rollback gar nicht). Ohne Transaktion wird sofort gesendet.
+ * <p>
+ * Empfangen: ein eigener Thread mit eigener (nicht gepoolter) Verbindung hört auf den Kanal und
+ * feuert die Nachrichten als lokales {@link CacheInvalidation}-Event. Nach jedem (Re-)Connect werden
+ * alle lokalen Caches geleert, weil Nachrichten in der Zwischenzeit verloren gegangen sein können.
+ */
+@ApplicationScoped
+public class CacheInvalidationBus {
+
+    private static final Logger LOG = Logger.getLogger(CacheInvalidationBus.class);
+    private static final char SEP = '|';
+
+    /** Kennung dieser Instanz, damit eigene Nachrichten nicht doppelt verarbeitet werden */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Inject
+    Event<CacheInvalidation> localEvents;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "cache.invalidation.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "cache.invalidation.channel", defaultValue = "cache_invalidation")
+    String channel;
+
+    @ConfigProperty(name = "cache.invalidation.poll-interval", defaultValue = "PT1S")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "cache.invalidation.max-reconnect-delay", defaultValue = "PT30S")
+    Duration maxReconnectDelay;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String jdbcUrl;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    Optional<String> username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    Optional<String> password;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+    private Counter published;
+    private Counter received;
+    private Counter resyncs;
+
+    void onStart(@Observes StartupEvent ev) {
+        published = registry.counter("cache.invalidation.published");
+        received = registry.counter("cache.invalidation.received");
+        resyncs = registry.counter("cache.invalidation.resyncs");
+        if (!enabled) {
+            LOG.info("Cross-instance cache invalidation disabled");
+            return;
+        }
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * Veröffentlicht eine Invalidierung an alle anderen Instanzen (bei laufender Transaktion erst beim Commit).
+     * Die lokale Invalidierung ist Sache des Aufrufers.
+     */
+    public void publish(CacheInvalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        String payload = encode(invalidation);
+        if (txRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            // gleiche JDBC-Verbindung wie die Transaktion -> Zustellung beim Commit
+            em.unwrap(Session.class).doWork(c -> notify(c, payload));
+        } else {
+            try (Connection c = dataSource.getConnection()) {
+                notify(c, payload);
+            } catch (SQLException e) {
+                // Andere Instanzen bleiben bis zur TTL ihrer Caches veraltet
+                LOG.warnf("Could not publish cache invalidation %s: %s", payload, e.getMessage());
+                return;
+            }
+        }
+        published.increment();
+    }
+
+    private void notify(Connection c, String payload) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("select pg_notify(?, ?)")) {
+            ps.setString(1, channel);
+            ps.setString(2, payload);
+            ps.execute();
+        }
+    }
+
+    private void listenLoop() {
+        long delayMillis = 500;
+        while (running) {
+            try (Connection c = connect()) {
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                PGConnection pg = c.unwrap(PGConnection.class);
+                LOG.infof("Listening for cache invalidations on channel '%s'", channel);
+                delayMillis = 500;
+
+                // Während der Verbindungspause verpasste Nachrichten lassen sich nicht nachholen -> alles leeren
+                resyncs.increment();
+                fireLocal(CacheInvalidation.all());
+
+                long lastCheck = System.currentTimeMillis();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) pollInterval.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification n : notifications) {
+                            handle(n.getParameter());
+                        }
+                    }
+                    // Halb-offene TCP-Verbindungen erkennen
+                    if (System.currentTimeMillis() - lastCheck > 30_000) {
+                        if (!c.isValid(5)) {
+                            throw new SQLException("Listener connection no longer valid");
+                        }
+                        lastCheck = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                LOG.warnf("Cache invalidation listener disconnected (%s), reconnecting in %d ms",
+                        e.getMessage(), delayMillis);
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                delayMillis = Math.min(delayMillis * 2, maxReconnectDelay.toMillis());
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(jdbcUrl, username.orElse(null), password.orElse(null));
+    }
+
+    private void handle(String payload) {
+        int first = payload.indexOf(SEP);
+        int second = payload.indexOf(SEP, first + 1);
+        if (first < 0 || second < 0) {
+            LOG.warnf("Ignoring malformed cache invalidation: %s", payload);
+            return;
+        }
+        if (payload.startsWith(nodeId) && first == nodeId.length()) {
+            return; // eigene Nachricht, lokal bereits verdrängt
+        }
+        try {
+            CacheInvalidation.Region region = CacheInvalidation.Region.valueOf(payload.substring(first + 1, second));
+            String key = second + 1 < payload.length() ? payload.substring(second + 1) : null;
+            received.increment();
+            fireLocal(new CacheInvalidation(region, key));
+        } catch (IllegalArgumentException e) {
+            LOG.warnf("Ignoring unknown cache invalidation: %s", payload);
+        }
+    }
+
+    /** Fehler eines Observers dürfen die Listener-Verbindung nicht abreißen lassen */
+    private void fireLocal(CacheInvalidation invalidation) {
+        try {
+            localEvents.fire(invalidation);
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "Cache invalidation observer failed for %s", invalidation);
+        }
+    }
+
+    /** Kompaktes Format: {@code <nodeId>|<REGION>|<key>} */
+    private String encode(CacheInvalidation invalidation) {
+        return nodeId + SEP + invalidation.region().name() + SEP
+                + (invalidation.key() != null ? invalidation.key() : "");
+    }
+}
@@ -0,0 +1,21 @@
+package com.elysion.application;
+
+import io.quarkus.arc.DefaultBean;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+
+/**
+ * Default-Sender ohne echten Mailversand: schreibt die Mail ins Log.
+ * Ein echter Transport ersetzt ihn durch einen eigenen {@link MailSender}-Bean.
+ */
+@DefaultBean
+@ApplicationScoped
+public class LogMailSender implements MailSender {
+
+    private static final Logger LOG = Logger.getLogger(LogMailSender.class);
+
+    @Override
+    public void send(OutgoingMail mail) {
+        LOG.infof("👉 Mail an %s: %s%n%s", mail.recipient(), mail.subject(), mail.body());
+    }
+}
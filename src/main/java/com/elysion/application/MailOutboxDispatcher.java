@@ -0,0 +1,285 @@
+package com.elysion.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versendet Mails aus der Outbox im Hintergrund.
+ * <p>
+ * Pro Durchlauf wird ein Batch fälliger Zeilen per {@code FOR UPDATE SKIP LOCKED} beansprucht und
+ * in derselben Anweisung bis zum Lease-Ende weggeschoben. Mehrere Instanzen teilen sich die Arbeit
+ * so ohne Doppelversand; stirbt eine Instanz mitten im Versand, werden ihre Zeilen nach Ablauf der
+ * Lease erneut fällig. Fehlversuche werden mit exponentiellem Backoff wiederholt, nach
+ * {@code mail.outbox.max-attempts} bleibt die Zeile als "dead" liegen.
+ */
+@ApplicationScoped
+public class MailOutboxDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(MailOutboxDispatcher.class);
+
+    private static final String CLAIM_SQL = """
+            UPDATE mail_outbox SET attempts = attempts + 1, next_attempt_at = ?
+            WHERE id IN (SELECT id FROM mail_outbox
+                         WHERE sent_at IS NULL AND next_attempt_at <= ? AND attempts < ?
+                         ORDER BY next_attempt_at
+                         LIMIT ?
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING id, recipient, subject, body, attempts, created_at
+            """;
+
+    private static final String MARK_SENT_SQL =
+            "UPDATE mail_outbox SET sent_at = ?, last_error = NULL WHERE id = ?";
+
+    private static final String MARK_FAILED_SQL =
+            "UPDATE mail_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?";
+
+    private static final String STATS_SQL = """
+            SELECT count(*) FILTER (WHERE attempts < ?),
+                   min(created_at) FILTER (WHERE attempts < ?),
+                   count(*) FILTER (WHERE attempts >= ?)
+            FROM mail_outbox WHERE sent_at IS NULL
+            """;
+
+    private static final String PURGE_SQL = """
+            DELETE FROM mail_outbox WHERE id IN (
+                SELECT id FROM mail_outbox WHERE sent_at < ? LIMIT 1000)
+            """;
+
+    @Inject
+    MailSender sender;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "mail.outbox.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "mail.outbox.poll-interval", defaultValue = "PT1S")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "mail.outbox.batch-size", defaultValue = "50")
+    int batchSize;
+
+    /** Wie lange eine beanspruchte Zeile für andere Instanzen gesperrt bleibt */
+    @ConfigProperty(name = "mail.outbox.lease", defaultValue = "PT5M")
+    Duration lease;
+
+    @ConfigProperty(name = "mail.outbox.max-attempts", defaultValue = "10")
+    int maxAttempts;
+
+    @ConfigProperty(name = "mail.outbox.initial-backoff", defaultValue = "PT10S")
+    Duration initialBackoff;
+
+    @ConfigProperty(name = "mail.outbox.max-backoff", defaultValue = "PT1H")
+    Duration maxBackoff;
+
+    /** Versendete Zeilen werden nach dieser Zeit gelöscht */
+    @ConfigProperty(name = "mail.outbox.retention", defaultValue = "P7D")
+    Duration retention;
+
+    @ConfigProperty(name = "mail.outbox.stats-interval", defaultValue = "PT15S")
+    Duration statsInterval;
+
+    private ScheduledExecutorService scheduler;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private Counter sent;
+    private Counter failed;
+    private Timer deliveryDelay;
+    private long lastStats;
+
+    private record Claimed(UUID id, OutgoingMail mail, int attempts, Instant createdAt) {}
+
+    void onStart(@Observes StartupEvent ev) {
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get)
+                .description("Noch nicht versendete Mails")
+                .register(registry);
+        Gauge.builder("mail.outbox.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Alter der ältesten noch nicht versendeten Mail")
+                .register(registry);
+        Gauge.builder("mail.outbox.dead", dead, AtomicLong::get)
+                .description("Mails, die nach max-attempts aufgegeben wurden")
+                .register(registry);
+        sent = registry.counter("mail.outbox.sent");
+        failed = registry.counter("mail.outbox.failed");
+        deliveryDelay = Timer.builder("mail.outbox.delivery.delay")
+                .description("Zeit von Enqueue bis Versand")
+                .register(registry);
+        if (!enabled) {
+            LOG.info("Mail outbox dispatcher disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mail-outbox-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void run() {
+        try {
+            // Volle Batches sofort nachziehen, statt bis zum nächsten Poll zu warten
+            while (dispatchBatch() == batchSize && !Thread.currentThread().isInterrupted()) {
+                // weiter
+            }
+            if (System.currentTimeMillis() - lastStats >= statsInterval.toMillis()) {
+                updateStatsAndPurge();
+                lastStats = System.currentTimeMillis();
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Nie aus dem Scheduler werfen, sonst wird der Task still beendet
+            LOG.warnf("Mail outbox dispatch failed: %s", e.getMessage());
+        }
+    }
+
+    /** @return Anzahl beanspruchter Mails */
+    int dispatchBatch() throws SQLException {
+        List<Claimed> claimed = claim();
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        List<Claimed> ok = new ArrayList<>(claimed.size());
+        List<Claimed> nok = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (Claimed c : claimed) {
+            try {
+                sender.send(c.mail());
+                ok.add(c);
+            } catch (Exception e) {
+                nok.add(c);
+                errors.add(String.valueOf(e.getMessage()));
+            }
+        }
+        complete(ok, nok, errors);
+        return claimed.size();
+    }
+
+    private List<Claimed> claim() throws SQLException {
+        Instant now = Instant.now();
+        List<Claimed> claimed = new ArrayList<>(batchSize);
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement(CLAIM_SQL)) {
+            ps.setTimestamp(1, Timestamp.from(now.plus(lease)));
+            ps.setTimestamp(2, Timestamp.from(now));
+            ps.setInt(3, maxAttempts);
+            ps.setInt(4, batchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    claimed.add(new Claimed(
+                            rs.getObject(1, UUID.class),
+                            new OutgoingMail(rs.getString(2), rs.getString(3), rs.getString(4)),
+                            rs.getInt(5),
+                            rs.getTimestamp(6).toInstant()));
+                }
+            }
+        }
+        return claimed;
+    }
+
+    private void complete(List<Claimed> ok, List<Claimed> nok, List<String> errors) throws SQLException {
+        Instant now = Instant.now();
+        try (Connection c = dataSource.getConnection()) {
+            if (!ok.isEmpty()) {
+                try (PreparedStatement ps = c.prepareStatement(MARK_SENT_SQL)) {
+                    for (Claimed m : ok) {
+                        ps.setTimestamp(1, Timestamp.from(now));
+                        ps.setObject(2, m.id());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            if (!nok.isEmpty()) {
+                try (PreparedStatement ps = c.prepareStatement(MARK_FAILED_SQL)) {
+                    for (int i = 0; i < nok.size(); i++) {
+                        Claimed m = nok.get(i);
+                        ps.setTimestamp(1, Timestamp.from(now.plus(backoff(m.attempts()))));
+                        ps.setString(2, truncate(errors.get(i)));
+                        ps.setObject(3, m.id());
+                        ps.addBatch();
+                        if (m.attempts() >= maxAttempts) {
+                            LOG.errorf("Giving up on mail %s to %s after %d attempts: %s",
+                                    m.id(), m.mail().recipient(), m.attempts(), errors.get(i));
+                        }
+                    }
+                    ps.executeBatch();
+                }
+            }
+        }
+        for (Claimed m : ok) {
+            sent.increment();
+            deliveryDelay.record(Duration.between(m.createdAt(), now));
+        }
+        failed.increment(nok.size());
+    }
+
+    /** initial * 2^(attempts-1), gedeckelt auf max-backoff */
+    Duration backoff(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration d = initialBackoff.multipliedBy(1L << shift);
+        return d.compareTo(maxBackoff) > 0 ? maxBackoff : d;
+    }
+
+    private void updateStatsAndPurge() throws SQLException {
+        try (Connection c = dataSource.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(STATS_SQL)) {
+                ps.setInt(1, maxAttempts);
+                ps.setInt(2, maxAttempts);
+                ps.setInt(3, maxAttempts);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    pending.set(rs.getLong(1));
+                    Timestamp oldest = rs.getTimestamp(2);
+                    lagSeconds.set(oldest == null ? 0
+                            : Math.max(0, Duration.between(oldest.toInstant(), Instant.now()).toSeconds()));
+                    dead.set(rs.getLong(3));
+                }
+            }
+            try (PreparedStatement ps = c.prepareStatement(PURGE_SQL)) {
+                ps.setTimestamp(1, Timestamp.from(Instant.now().minus(retention)));
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+}
@@ -0,0 +1,13 @@
+package com.elysion.application;
+
+/**
+ * Transport für ausgehende Mails (SMTP, API eines Mail-Providers, ...).
+ * Wird nur vom {@link MailOutboxDispatcher} aufgerufen, nie innerhalb einer Request-Transaktion.
+ */
+public interface MailSender {
+
+    /**
+     * @throws Exception jeder Fehler führt zu einem erneuten Versuch mit Backoff
+     */
+    void send(OutgoingMail mail) throws Exception;
+}
@@ -1,32 +1,86 @@
 package com.elysion.application;
 
+import com.elysion.domain.MailOutbox;
 import com.elysion.domain.User;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rendert Mails und legt sie in die Outbox ({@code mail_outbox}) - in derselben Transaktion wie die
+ * fachliche Änderung. Der eigentliche Versand läuft entkoppelt im {@link MailOutboxDispatcher}:
+ * kein Request wartet auf den Mailserver, und eine committete Mail geht nicht verloren.
+ */
 @ApplicationScoped
 public class MailService {
 
-    public void sendActivationMail(User user) {
-        String activationLink = "https://100.66.219.89:8080/users/confirm-email?token=" + user.activationToken;
-        System.out.println("👉 Bestätigungslink: " + activationLink);
+    private static final String INSERT_SQL = """
+            INSERT INTO mail_outbox (id, recipient, subject, body, created_at, next_attempt_at, attempts)
+            VALUES (?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    @ConfigProperty(name = "mail.confirm-url", defaultValue = "https://100.66.219.89:8080/users/confirm-email")
+    String confirmUrl;
 
-        // Oder echtes E-Mail-System:
-        // mailer.send(Mail.withText(user.email, "Bestätige dein Konto", "Link: " + activationLink));
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void sendActivationMail(User user, String activationToken) {
+        enqueue(activationMail(user.email, activationToken));
     }
 
     /**
      * Sendet einen Bestätigungslink an die neue, noch nicht aktive E-Mail-Adresse.
      * Der User muss diesen Link klicken, um die Änderung abzuschließen.
      */
-    public void sendEmailChangeConfirmation(User user) {
-        String confirmLink = "https://100.66.219.89:8080/users/confirm-email?token=" + user.activationToken;
-        System.out.println("👉 Bestätigungslink für neue E-Mails: " + confirmLink);
-
-        // Bei echtem Setup:
-        // mailer.send(Mail.withText(
-        //     user.pendingEmail,
-        //     "Bitte bestätige deine neue E-Mail-Adresse",
-        //     "Klicke hier zum Bestätigen:" + confirmLink
-        // ));
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void sendEmailChangeConfirmation(User user, String confirmToken) {
+        String confirmLink = confirmUrl + "?token=" + confirmToken;
+        enqueue(new OutgoingMail(
+                user.pendingEmail,
+                "Bitte bestätige deine neue E-Mail-Adresse",
+                "Klicke hier zum Bestätigen: " + confirmLink));
+    }
+
+    public OutgoingMail activationMail(String email, String activationToken) {
+        String activationLink = confirmUrl + "?token=" + activationToken;
+        return new OutgoingMail(email, "Bestätige dein Konto", "Link: " + activationLink);
+    }
+
+    /** JDBC-Variante für Batch-Schreiber, die ohne Persistence Context arbeiten (z.B. Import) */
+    public void enqueueAll(Connection connection, List<OutgoingMail> mails) throws SQLException {
+        if (mails.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(OffsetDateTime.now().toInstant());
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            for (OutgoingMail mail : mails) {
+                ps.setObject(1, UUID.randomUUID());
+                ps.setString(2, mail.recipient());
+                ps.setString(3, mail.subject());
+                ps.setString(4, mail.body());
+                ps.setTimestamp(5, now);
+                ps.setTimestamp(6, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void enqueue(OutgoingMail mail) {
+        MailOutbox outbox = new MailOutbox();
+        outbox.id = UUID.randomUUID();
+        outbox.recipient = mail.recipient();
+        outbox.subject = mail.subject();
+        outbox.body = mail.body();
+        outbox.createdAt = OffsetDateTime.now();
+        outbox.nextAttemptAt = outbox.createdAt;
+        outbox.persist();
     }
-}
\ No newline at end of file
+}
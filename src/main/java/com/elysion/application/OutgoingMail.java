@@ -0,0 +1,7 @@
+package com.elysion.application;
+
+/**
+ * Eine fertig gerenderte Mail.
+ */
+public record OutgoingMail(String recipient, String subject, String body) {
+}
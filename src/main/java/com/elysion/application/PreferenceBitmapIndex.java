@@ -0,0 +1,570 @@
+package com.elysion.application;
+
+import com.elysion.domain.FilterCatalog;
+import com.elysion.domain.Importance;
+import com.elysion.domain.SparseBitmap;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-Memory-Bitmap-Index über Präferenzen, Rolle und Aktiv-Status aller User für Segment-Auswertungen.
+ * <p>
+ * Bit = {@code users.seq} (dichte Ganzzahl je User). Je Filter-Position und {@link Importance} eine
+ * {@link SparseBitmap}, dazu "alle", "aktiv" und je Rolle eine. Aufgebaut per Streaming-Scan in einem
+ * Snapshot (REPEATABLE READ) auf einem eigenen Thread; danach hält derselbe Thread den Index aktuell:
+ * <ul>
+ *   <li>geänderte User (lokale Schreibzugriffe nach dem Commit, USER-/PREFERENCES-Invalidierungen anderer
+ *       Instanzen) werden gesammelt und batchweise neu gelesen,</li>
+ *   <li>neue User (Registrierung, Import - auf jeder Instanz) per {@code seq} hinter der Hochwassermarke;
+ *       übersprungene {@code seq} darunter (noch nicht committet oder Rollback) werden als Lücken gemerkt und
+ *       gezielt nachgefragt, bis sie auftauchen oder verfallen,</li>
+ *   <li>gelöschte User fallen erst beim periodischen Neuaufbau heraus.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class PreferenceBitmapIndex {
+
+    private static final Logger LOG = Logger.getLogger(PreferenceBitmapIndex.class);
+
+    /** Sequenzwerte werden nicht in Commit-Reihenfolge sichtbar; so lange wird eine Lücke nachgefragt */
+    private static final long GAP_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    /** Beim Neuaufbau nur Lücken so weit unter der Marke merken - ältere sind gelöschte User */
+    private static final int REBUILD_GAP_WINDOW = 1000;
+    /** Mehr offene Lücken -> Neuaufbau statt immer längerer Nachfragen */
+    private static final int MAX_GAPS = 10_000;
+    private static final int MAX_DEPTH = 32;
+
+    private static final String SCAN_USERS_SQL = "SELECT seq, active, role FROM users";
+
+    private static final String SCAN_PREFS_SQL = """
+            SELECT u.seq, f.position, p.importance
+            FROM user_sustainability_pref p
+            JOIN users u ON u.id = p.user_id
+            JOIN sustainability_filter f ON f.id = p.filter_id AND f.retired_at IS NULL
+            """;
+
+    private static final String USERS_SELECT = """
+            SELECT u.seq, u.active, u.role, f.position, p.importance
+            FROM users u
+            LEFT JOIN user_sustainability_pref p ON p.user_id = u.id
+            LEFT JOIN sustainability_filter f ON f.id = p.filter_id AND f.retired_at IS NULL
+            """;
+
+    private static final String USERS_BY_ID_SQL = USERS_SELECT + "WHERE u.id = ANY(?) ORDER BY u.seq";
+
+    private static final String USERS_SINCE_SQL = USERS_SELECT + "WHERE u.seq > ? OR u.seq = ANY(?) ORDER BY u.seq";
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @ConfigProperty(name = "preferences.index.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "preferences.index.refresh-interval", defaultValue = "PT1S")
+    Duration refreshInterval;
+
+    /** Vollständiger Neuaufbau (räumt u.a. gelöschte User ab) */
+    @ConfigProperty(name = "preferences.index.rebuild-interval", defaultValue = "PT6H")
+    Duration rebuildInterval;
+
+    @ConfigProperty(name = "preferences.index.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "preferences.index.fetch-size", defaultValue = "10000")
+    int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean(true);
+    private ScheduledExecutorService scheduler;
+
+    /** Nur unter {@link #lock}; null bis zum ersten Aufbau */
+    private Bitmaps bitmaps;
+    /** Nur vom Index-Thread benutzt */
+    private int highWaterMark;
+    /** Fehlende seq unter der Marke -> Zeitpunkt, seit dem sie fehlen (nur Index-Thread) */
+    private final Map<Integer, Long> gaps = new HashMap<>();
+    private long lastRebuild;
+
+    /** Ergebnis einer Segment-Zählung; {@code total} = alle indizierten User */
+    public record SegmentCount(long count, long total) {}
+
+    private record Row(int seq, boolean active, String role, Integer position, String importance) {}
+
+    void onStart(@Observes StartupEvent ev) {
+        Gauge.builder("preferences.index.users", this, i -> i.read(b -> (double) b.all.cardinality(), 0d))
+                .description("Indizierte User")
+                .register(registry);
+        Gauge.builder("preferences.index.pending", dirty, Set::size)
+                .description("Geänderte User, die noch nicht neu indiziert sind")
+                .register(registry);
+        Gauge.builder("preferences.index.bytes", this, i -> i.read(b -> (double) b.sizeInBytes(), 0d))
+                .description("Speicher der Bitmaps")
+                .register(registry);
+        if (!enabled) {
+            LOG.info("Preference bitmap index disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "preference-index");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /** Änderungen anderer Instanzen (bzw. Resync nach Verbindungsabbruch) */
+    void onInvalidation(@Observes CacheInvalidation invalidation) {
+        if (!enabled) {
+            return;
+        }
+        CacheInvalidation.Region region = invalidation.region();
+        if (region != CacheInvalidation.Region.USER && region != CacheInvalidation.Region.PREFERENCES
+                && region != CacheInvalidation.Region.ALL) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            rebuildRequested.set(true);
+        } else {
+            dirty.add(UUID.fromString(invalidation.key()));
+        }
+    }
+
+    /** User neu indizieren - bei laufender Transaktion erst nach erfolgreichem Commit */
+    public void markDirty(UUID userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (txRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        dirty.add(userId);
+                    }
+                }
+            });
+        } else {
+            dirty.add(userId);
+        }
+    }
+
+    /**
+     * Zählt die User, auf die der Ausdruck zutrifft. Knoten:
+     * {@code {"and":[..]}}, {@code {"or":[..]}}, {@code {"not":{..}}},
+     * {@code {"filter":"bio","min":"IMPORTANT","max":"VERY_IMPORTANT"}} (min/max optional),
+     * {@code {"active":true}}, {@code {"role":"Seller"}}.
+     *
+     * @throws IllegalArgumentException ungültiger Ausdruck oder unbekannter Filter
+     * @throws IllegalStateException    Index noch nicht aufgebaut
+     */
+    public SegmentCount count(JsonNode expression) {
+        FilterCatalog catalog = filterService.catalog();
+        lock.readLock().lock();
+        try {
+            Bitmaps b = requireReady();
+            return new SegmentCount(evaluate(expression, b, catalog, 0).cardinality(), b.all.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Verteilung der Importance je aktivem Filter; "NONE" = keine Präferenz gesetzt.
+     *
+     * @throws IllegalStateException Index noch nicht aufgebaut
+     */
+    public Map<String, Map<String, Long>> histograms(boolean activeOnly) {
+        FilterCatalog catalog = filterService.catalog();
+        Importance[] levels = Importance.values();
+        lock.readLock().lock();
+        try {
+            Bitmaps b = requireReady();
+            SparseBitmap base = activeOnly ? b.active : b.all;
+            long total = base.cardinality();
+            Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+            for (FilterCatalog.Entry filter : catalog.filters()) {
+                Map<String, Long> histogram = new LinkedHashMap<>();
+                long set = 0;
+                for (Importance level : levels) {
+                    SparseBitmap bits = b.levelOrNull(filter.position(), level.ordinal());
+                    long n = bits == null ? 0 : bits.andCardinality(base);
+                    histogram.put(level.name(), n);
+                    set += n;
+                }
+                histogram.put("NONE", total - set);
+                result.put(filter.key(), histogram);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Bitmaps requireReady() {
+        if (bitmaps == null) {
+            throw new IllegalStateException("Preference index not ready");
+        }
+        return bitmaps;
+    }
+
+    /** Liefert immer eine eigene Bitmap, die der Aufrufer verändern darf */
+    private SparseBitmap evaluate(JsonNode node, Bitmaps b, FilterCatalog catalog, int depth) {
+        if (node == null || !node.isObject() || node.size() == 0) {
+            throw new IllegalArgumentException("Segment expression must be an object");
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Segment expression too deep");
+        }
+        if (node.has("and")) {
+            JsonNode children = requireArray(node, "and");
+            SparseBitmap result = evaluate(children.get(0), b, catalog, depth + 1);
+            for (int i = 1; i < children.size(); i++) {
+                result.and(evaluate(children.get(i), b, catalog, depth + 1));
+            }
+            return result;
+        }
+        if (node.has("or")) {
+            JsonNode children = requireArray(node, "or");
+            SparseBitmap result = new SparseBitmap();
+            for (JsonNode child : children) {
+                result.or(evaluate(child, b, catalog, depth + 1));
+            }
+            return result;
+        }
+        if (node.has("not")) {
+            return b.all.copy().andNot(evaluate(node.get("not"), b, catalog, depth + 1));
+        }
+        if (node.has("filter")) {
+            FilterCatalog.Entry filter = catalog.byKey(node.get("filter").asText());
+            if (filter == null) {
+                throw new IllegalArgumentException("Unknown filter key: " + node.get("filter").asText());
+            }
+            int min = level(node, "min", 0);
+            int max = level(node, "max", Importance.values().length - 1);
+            SparseBitmap result = new SparseBitmap();
+            for (int o = min; o <= max; o++) {
+                SparseBitmap bits = b.levelOrNull(filter.position(), o);
+                if (bits != null) {
+                    result.or(bits);
+                }
+            }
+            return result;
+        }
+        if (node.has("active")) {
+            return node.get("active").asBoolean() ? b.active.copy() : b.all.copy().andNot(b.active);
+        }
+        if (node.has("role")) {
+            SparseBitmap bits = b.roles.get(node.get("role").asText());
+            return bits == null ? new SparseBitmap() : bits.copy();
+        }
+        throw new IllegalArgumentException("Unknown segment expression: " + node);
+    }
+
+    private static JsonNode requireArray(JsonNode node, String op) {
+        JsonNode children = node.get(op);
+        if (!children.isArray() || children.isEmpty()) {
+            throw new IllegalArgumentException("'" + op + "' needs a non-empty array");
+        }
+        return children;
+    }
+
+    private static int level(JsonNode node, String field, int defaultOrdinal) {
+        JsonNode value = node.get(field);
+        if (value == null) {
+            return defaultOrdinal;
+        }
+        try {
+            return Importance.valueOf(value.asText()).ordinal();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown importance: " + value.asText());
+        }
+    }
+
+    private <T> T read(Function<Bitmaps, T> f, T ifNotReady) {
+        lock.readLock().lock();
+        try {
+            return bitmaps == null ? ifNotReady : f.apply(bitmaps);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Index-Thread ---
+
+    void run() {
+        try {
+            if (rebuildRequested.getAndSet(false)
+                    || System.currentTimeMillis() - lastRebuild >= rebuildInterval.toMillis()) {
+                rebuild();
+            } else {
+                catchUpInserts();
+            }
+            drainDirty();
+        } catch (SQLException | RuntimeException e) {
+            // Nie aus dem Scheduler werfen, sonst wird der Task still beendet
+            LOG.warnf("Preference index refresh failed: %s", e.getMessage());
+            if (lastRebuild == 0) {
+                rebuildRequested.set(true);
+            }
+        }
+    }
+
+    private void rebuild() throws SQLException {
+        long start = System.nanoTime();
+        Bitmaps next = new Bitmaps();
+        int maxSeq = 0;
+        try (Connection c = dataSource.getConnection()) {
+            int isolation = c.getTransactionIsolation();
+            // pgjdbc streamt nur mit Cursor (fetchSize ohne Auto-Commit); ein Snapshot für beide Scans
+            c.setAutoCommit(false);
+            c.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                try (PreparedStatement ps = c.prepareStatement(SCAN_USERS_SQL)) {
+                    ps.setFetchSize(fetchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            int seq = rs.getInt(1);
+                            next.setUser(seq, rs.getBoolean(2), rs.getString(3));
+                            maxSeq = Math.max(maxSeq, seq);
+                        }
+                    }
+                }
+                try (PreparedStatement ps = c.prepareStatement(SCAN_PREFS_SQL)) {
+                    ps.setFetchSize(fetchSize);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            next.level(rs.getInt(2), Importance.valueOf(rs.getString(3)).ordinal()).set(rs.getInt(1));
+                        }
+                    }
+                }
+                c.commit();
+            } finally {
+                c.setAutoCommit(true);
+                c.setTransactionIsolation(isolation);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            bitmaps = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        highWaterMark = maxSeq;
+        lastRebuild = System.currentTimeMillis();
+        gaps.clear();
+        for (int seq = Math.max(1, maxSeq - REBUILD_GAP_WINDOW); seq < maxSeq; seq++) {
+            if (!next.all.get(seq)) {
+                gaps.put(seq, lastRebuild);
+            }
+        }
+        LOG.infof("Preference index rebuilt: %d users, %d KiB in %d ms", next.all.cardinality(),
+                next.sizeInBytes() / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /** Liest nur User hinter der Marke und offene Lücken - im Normalfall ein leerer Index-Lookup */
+    private void catchUpInserts() throws SQLException {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(since -> now - since > GAP_TTL_MILLIS);
+        List<Row> rows;
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement(USERS_SINCE_SQL)) {
+            ps.setInt(1, highWaterMark);
+            ps.setArray(2, c.createArrayOf("integer", gaps.keySet().toArray()));
+            rows = readRows(ps);
+        }
+        int mark = highWaterMark;
+        for (Row row : rows) {
+            gaps.remove(row.seq());
+            if (row.seq() > mark) {
+                // Sprünge (z.B. setval) nicht Wert für Wert merken
+                for (int seq = Math.max(mark + 1, row.seq() - MAX_GAPS); seq < row.seq(); seq++) {
+                    gaps.put(seq, now);
+                }
+                mark = row.seq();
+            }
+        }
+        highWaterMark = mark;
+        if (gaps.size() > MAX_GAPS) {
+            gaps.clear();
+            rebuildRequested.set(true);
+        }
+        apply(rows);
+    }
+
+    private void drainDirty() throws SQLException {
+        while (!dirty.isEmpty()) {
+            List<UUID> batch = new ArrayList<>(batchSize);
+            for (Iterator<UUID> it = dirty.iterator(); it.hasNext() && batch.size() < batchSize; ) {
+                batch.add(it.next());
+                it.remove();
+            }
+            List<Row> rows;
+            try (Connection c = dataSource.getConnection();
+                 PreparedStatement ps = c.prepareStatement(USERS_BY_ID_SQL)) {
+                ps.setArray(1, c.createArrayOf("uuid", batch.toArray()));
+                rows = readRows(ps);
+            } catch (SQLException | RuntimeException e) {
+                dirty.addAll(batch);
+                throw e;
+            }
+            apply(rows);
+        }
+    }
+
+    private static List<Row> readRows(PreparedStatement ps) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows.add(new Row(rs.getInt(1), rs.getBoolean(2), rs.getString(3),
+                        (Integer) rs.getObject(4), rs.getString(5)));
+            }
+        }
+        return rows;
+    }
+
+    /** Zeilen sind nach seq sortiert; je User werden erst alle Bits gelöscht, dann neu gesetzt */
+    private void apply(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (bitmaps == null) {
+                return;
+            }
+            int current = -1;
+            for (Row row : rows) {
+                if (row.seq() != current) {
+                    current = row.seq();
+                    bitmaps.clearUser(current);
+                    bitmaps.setUser(current, row.active(), row.role());
+                }
+                if (row.position() != null) {
+                    bitmaps.level(row.position(), Importance.valueOf(row.importance()).ordinal()).set(current);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Die eigentlichen Bitmaps; nur unter dem Lock des Index benutzt */
+    private static final class Bitmaps {
+        private static final int LEVELS = Importance.values().length;
+
+        final SparseBitmap all = new SparseBitmap();
+        final SparseBitmap active = new SparseBitmap();
+        final Map<String, SparseBitmap> roles = new HashMap<>();
+        /** [Filter-Position][Importance-Ordinal] */
+        SparseBitmap[][] levels = new SparseBitmap[0][];
+
+        void setUser(int seq, boolean isActive, String role) {
+            all.set(seq);
+            if (isActive) {
+                active.set(seq);
+            }
+            roles.computeIfAbsent(role, r -> new SparseBitmap()).set(seq);
+        }
+
+        void clearUser(int seq) {
+            all.clear(seq);
+            active.clear(seq);
+            for (SparseBitmap bits : roles.values()) {
+                bits.clear(seq);
+            }
+            for (SparseBitmap[] byLevel : levels) {
+                if (byLevel != null) {
+                    for (SparseBitmap bits : byLevel) {
+                        bits.clear(seq);
+                    }
+                }
+            }
+        }
+
+        SparseBitmap level(int position, int ordinal) {
+            if (position >= levels.length) {
+                levels = Arrays.copyOf(levels, position + 1);
+            }
+            if (levels[position] == null) {
+                levels[position] = new SparseBitmap[LEVELS];
+                for (int i = 0; i < LEVELS; i++) {
+                    levels[position][i] = new SparseBitmap();
+                }
+            }
+            return levels[position][ordinal];
+        }
+
+        SparseBitmap levelOrNull(int position, int ordinal) {
+            return position < levels.length && levels[position] != null ? levels[position][ordinal] : null;
+        }
+
+        long sizeInBytes() {
+            long n = all.sizeInBytes() + active.sizeInBytes();
+            for (SparseBitmap bits : roles.values()) {
+                n += bits.sizeInBytes();
+            }
+            for (SparseBitmap[] byLevel : levels) {
+                if (byLevel != null) {
+                    for (SparseBitmap bits : byLevel) {
+                        n += bits.sizeInBytes();
+                    }
+                }
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.elysion.application;
+
+import com.elysion.domain.FilterCatalog;
+import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceVector;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Match-Scores einer Produktliste gegen die Präferenzen eines Users.
+ * <p>
+ * Score eines Produkts = Summe von {@link Importance#weight()} über alle Filter, die das Produkt erfüllt
+ * und die der User gesetzt hat (jeder Filter höchstens einmal). Der Body wird gestreamt geparst; Filter-Keys
+ * werden direkt im Parser-Puffer über den {@link FilterCatalog} auf Positionen abgebildet. Pro Produkt
+ * entsteht kein Objekt, gerechnet wird nur auf {@code int[]}.
+ * <p>
+ * Format: {@code {"products": [["bio", "vegan"], [], ["fair-trade"]]}} - je Produkt die erfüllten Filter-Keys.
+ * Unbekannte oder stillgelegte Keys werden ignoriert.
+ */
+@ApplicationScoped
+public class PreferenceScoringService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Inject
+    PreferenceVectorCache vectorCache;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @ConfigProperty(name = "preferences.score.max-products", defaultValue = "5000")
+    int maxProducts = 5000;
+
+    /**
+     * @param totalWeight höchstmöglicher Score (alle gesetzten Filter erfüllt)
+     * @param scores      ein Score je Produkt, in Eingabereihenfolge
+     */
+    public record Scores(int totalWeight, int[] scores) {}
+
+    /**
+     * @throws IllegalArgumentException kaputtes JSON, falsches Format oder zu viele Produkte
+     */
+    public Scores score(UUID userId, InputStream body) {
+        if (userId == null) throw new IllegalArgumentException("user is null");
+        return score(filterService.catalog(), vectorCache.get(userId), body);
+    }
+
+    /** Ohne DB und CDI - Katalog und Vektor kommen vom Aufrufer */
+    public Scores score(FilterCatalog catalog, PreferenceVector vector, InputStream body) {
+        // Gewicht je Position; nur aktive Filter zählen
+        int[] weights = new int[catalog.maxPosition() + 1];
+        int totalWeight = 0;
+        for (FilterCatalog.Entry filter : catalog.filters()) {
+            Importance importance = vector.get(filter.position());
+            if (importance != null) {
+                weights[filter.position()] = importance.weight();
+                totalWeight += importance.weight();
+            }
+        }
+
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected {\"products\": [...]}");
+            }
+            int[] scores = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("products".equals(field)) {
+                    scores = scoreProducts(parser, catalog, weights);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (scores == null) {
+                throw new IllegalArgumentException("Missing products");
+            }
+            return new Scores(totalWeight, scores);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not read request body");
+        }
+    }
+
+    private int[] scoreProducts(JsonParser parser, FilterCatalog catalog, int[] weights) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("products must be an array");
+        }
+        int[] scores = new int[64];
+        // seenIn[pos] == n+1: Filter wurde für Produkt n schon gezählt (kein Löschen je Produkt nötig)
+        int[] seenIn = new int[weights.length];
+        int n = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Each product must be an array of filter keys");
+            }
+            if (n == maxProducts) {
+                throw new IllegalArgumentException("Too many products (max " + maxProducts + ")");
+            }
+            int score = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.VALUE_STRING) {
+                int pos = catalog.positionOf(parser.getTextCharacters(), parser.getTextOffset(),
+                        parser.getTextLength());
+                if (pos >= 0 && seenIn[pos] != n + 1) {
+                    seenIn[pos] = n + 1;
+                    score += weights[pos];
+                }
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Filter keys must be strings");
+            }
+            if (n == scores.length) {
+                scores = Arrays.copyOf(scores, Math.min(scores.length * 2, maxProducts));
+            }
+            scores[n++] = score;
+        }
+        return n == scores.length ? scores : Arrays.copyOf(scores, n);
+    }
+}
@@ -0,0 +1,113 @@
+package com.elysion.application;
+
+import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceVector;
+import com.elysion.domain.UserSustainabilityPref;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-Process-Cache der {@link PreferenceVector}s je User.
+ * <p>
+ * Ein Vektor wird bei Bedarf mit einer Query (Position + Importance) aus den Präferenz-Zeilen abgeleitet
+ * und als {@code long[]} gehalten. Schreibpfade rufen {@link #evict(UUID)} auf; andere Instanzen und
+ * Änderungen am Filter-Katalog kommen als {@link CacheInvalidation}.
+ */
+@ApplicationScoped
+public class PreferenceVectorCache {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @ConfigProperty(name = "preferences.vector-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "preferences.vector-cache.max-size", defaultValue = "100000")
+    long maxSize;
+
+    @ConfigProperty(name = "preferences.vector-cache.ttl", defaultValue = "PT10M")
+    Duration ttl;
+
+    private Cache<UUID, PreferenceVector> vectors;
+
+    @PostConstruct
+    void init() {
+        vectors = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, vectors, "preference-vectors");
+    }
+
+    public PreferenceVector get(UUID userId) {
+        if (!enabled) {
+            return load(userId);
+        }
+        return vectors.get(userId, this::load);
+    }
+
+    /** Verdrängt jetzt und - falls eine Transaktion läuft - nochmals nach deren Abschluss (wie {@link UserCache}) */
+    public void evict(UUID userId) {
+        vectors.invalidate(userId);
+        if (txRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    vectors.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    void onInvalidation(@Observes CacheInvalidation invalidation) {
+        // Katalogänderungen können Positionen betreffen -> alles verwerfen
+        if (invalidation.affects(CacheInvalidation.Region.FILTERS)
+                || (invalidation.affects(CacheInvalidation.Region.PREFERENCES) && invalidation.key() == null)) {
+            vectors.invalidateAll();
+        } else if (invalidation.region() == CacheInvalidation.Region.PREFERENCES) {
+            vectors.invalidate(UUID.fromString(invalidation.key()));
+        }
+    }
+
+    private PreferenceVector load(UUID userId) {
+        List<Object[]> rows = UserSustainabilityPref.getEntityManager()
+                .createQuery("select f.position, p.importance from UserSustainabilityPref p join p.filter f "
+                        + "where p.user.id = :userId and f.retiredAt is null", Object[].class)
+                .setParameter("userId", userId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return PreferenceVector.EMPTY;
+        }
+        int maxPosition = 0;
+        for (Object[] row : rows) {
+            maxPosition = Math.max(maxPosition, (Integer) row[0]);
+        }
+        long[] words = new long[PreferenceVector.wordsFor(maxPosition + 1)];
+        for (Object[] row : rows) {
+            PreferenceVector.set(words, (Integer) row[0], (Importance) row[1]);
+        }
+        return PreferenceVector.wrap(words);
+    }
+}
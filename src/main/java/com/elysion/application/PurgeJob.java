@@ -0,0 +1,174 @@
+package com.elysion.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Räumt periodisch abgelaufene Tokens und nie aktivierte Alt-Konten weg.
+ * <p>
+ * Gelöscht wird in kleinen Batches mit je eigenem Auto-Commit, damit keine langen Locks entstehen
+ * und Autovacuum hinterherkommt. {@code SKIP LOCKED} lässt parallel laufende Instanzen und gerade
+ * bearbeitete Zeilen (z.B. ein Confirm im selben Moment) in Ruhe.
+ */
+@ApplicationScoped
+public class PurgeJob {
+
+    private static final Logger LOG = Logger.getLogger(PurgeJob.class);
+
+    private static final String PURGE_USER_TOKENS_SQL = """
+            DELETE FROM user_token WHERE id IN (
+                SELECT id FROM user_token WHERE expires_at < ? LIMIT ? FOR UPDATE SKIP LOCKED)
+            """;
+
+    private static final String PURGE_REFRESH_TOKENS_SQL = """
+            DELETE FROM refresh_token WHERE id IN (
+                SELECT id FROM refresh_token WHERE expires_at < ? LIMIT ? FOR UPDATE SKIP LOCKED)
+            """;
+
+    /** Inaktive Konten ohne Präferenzen (die FK hat kein Cascade); Tokens hängen per Cascade dran */
+    private static final String PURGE_STALE_ACCOUNTS_SQL = """
+            DELETE FROM users WHERE id IN (
+                SELECT u.id FROM users u
+                WHERE u.active = false AND u.created_at < ?
+                  AND NOT EXISTS (SELECT 1 FROM user_sustainability_pref p WHERE p.user_id = u.id)
+                LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING id
+            """;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    UserCache userCache;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "purge.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "purge.interval", defaultValue = "PT1H")
+    Duration interval;
+
+    @ConfigProperty(name = "purge.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    /** Pause zwischen zwei Batches, damit Replikation/Vacuum mitkommen */
+    @ConfigProperty(name = "purge.batch-pause", defaultValue = "PT0.1S")
+    Duration batchPause;
+
+    /** Nie aktivierte Konten werden nach dieser Zeit gelöscht */
+    @ConfigProperty(name = "purge.stale-account-age", defaultValue = "P30D")
+    Duration staleAccountAge;
+
+    private ScheduledExecutorService scheduler;
+    private Counter userTokens;
+    private Counter refreshTokens;
+    private Counter staleAccounts;
+
+    void onStart(@Observes StartupEvent ev) {
+        userTokens = registry.counter("purge.deleted", "kind", "user_token");
+        refreshTokens = registry.counter("purge.deleted", "kind", "refresh_token");
+        staleAccounts = registry.counter("purge.deleted", "kind", "stale_account");
+        if (!enabled) {
+            LOG.info("Purge job disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "purge-job");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void run() {
+        try {
+            Instant now = Instant.now();
+            long tokens = purge(PURGE_USER_TOKENS_SQL, now, userTokens);
+            long refresh = purge(PURGE_REFRESH_TOKENS_SQL, now, refreshTokens);
+            long accounts = purgeStaleAccounts(now.minus(staleAccountAge));
+            if (tokens + refresh + accounts > 0) {
+                LOG.infof("Purged %d user tokens, %d refresh tokens, %d stale accounts", tokens, refresh, accounts);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Nie aus dem Scheduler werfen, sonst wird der Task still beendet
+            LOG.warnf("Purge failed: %s", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long purge(String sql, Instant cutoff, Counter counter) throws SQLException, InterruptedException {
+        long total = 0;
+        int deleted;
+        do {
+            try (Connection c = dataSource.getConnection();
+                 PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setTimestamp(1, Timestamp.from(cutoff));
+                ps.setInt(2, batchSize);
+                deleted = ps.executeUpdate();
+            }
+            total += deleted;
+            counter.increment(deleted);
+            pauseIfFull(deleted);
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    private long purgeStaleAccounts(Instant cutoff) throws SQLException, InterruptedException {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = 0;
+            try (Connection c = dataSource.getConnection();
+                 PreparedStatement ps = c.prepareStatement(PURGE_STALE_ACCOUNTS_SQL)) {
+                ps.setTimestamp(1, Timestamp.from(cutoff));
+                ps.setInt(2, batchSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // Nur lokal: andere Instanzen halten das Profil höchstens bis zur Cache-TTL
+                        userCache.evictNow(rs.getObject(1, UUID.class));
+                        deleted++;
+                    }
+                }
+            }
+            total += deleted;
+            staleAccounts.increment(deleted);
+            pauseIfFull(deleted);
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    private void pauseIfFull(int deleted) throws InterruptedException {
+        if (deleted == batchSize && !batchPause.isZero()) {
+            Thread.sleep(batchPause.toMillis());
+        }
+    }
+}
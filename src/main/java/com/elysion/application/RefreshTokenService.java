@@ -0,0 +1,98 @@
+package com.elysion.application;
+
+import com.elysion.domain.RefreshToken;
+import com.elysion.domain.User;
+import com.elysion.security.Digests;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Ausgabe und Rotation von Refresh-Tokens.
+ * Ein Refresh kostet nur einen Index-Lookup auf den Token-Hash, ein PK-Lookup auf den User
+ * und eine JWT-Signatur - kein BCrypt. Wird ein bereits getauschter Token erneut vorgelegt,
+ * wird die gesamte Token-Familie gesperrt (Reuse-Detection).
+ */
+@ApplicationScoped
+public class RefreshTokenService {
+
+    private static final Logger LOG = Logger.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @ConfigProperty(name = "security.refresh-token.lifespan", defaultValue = "P30D")
+    Duration lifespan;
+
+    /** Ergebnis einer Rotation: der User und der neue (Klartext-)Refresh-Token */
+    public record Rotation(User user, String refreshToken) {}
+
+    /** Startet eine neue Token-Familie (z.B. beim Login) und liefert den Klartext-Token */
+    @Transactional
+    public String issue(User user) {
+        return create(user.id, UUID.randomUUID());
+    }
+
+    /**
+     * Tauscht einen Refresh-Token gegen einen neuen.
+     *
+     * @throws IllegalArgumentException unbekannter Token
+     * @throws IllegalStateException    abgelaufen, gesperrt, wiederverwendet oder User inaktiv
+     */
+    @Transactional(dontRollbackOn = IllegalStateException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        RefreshToken token = RefreshToken.find("tokenHash", Digests.sha256Hex(rawToken)).firstResult();
+        if (token == null) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        if (token.revoked) {
+            throw new IllegalStateException("Refresh token revoked");
+        }
+        if (token.expiresAt.isBefore(OffsetDateTime.now())) {
+            throw new IllegalStateException("Refresh token expired");
+        }
+
+        // Atomar als benutzt markieren; 0 Zeilen = bereits getauscht -> Reuse
+        long marked = RefreshToken.update("usedAt = ?1 where id = ?2 and usedAt is null",
+                OffsetDateTime.now(), token.id);
+        if (marked == 0) {
+            LOG.warnf("Refresh token reuse detected (user %s, family %s)", token.userId, token.familyId);
+            RefreshToken.update("revoked = true where familyId = ?1", token.familyId);
+            throw new IllegalStateException("Refresh token reuse detected");
+        }
+
+        User user = User.findById(token.userId);
+        if (user == null || !user.active) {
+            throw new IllegalStateException("Account not active");
+        }
+        return new Rotation(user, create(user.id, token.familyId));
+    }
+
+    /** Sperrt alle Refresh-Tokens eines Users (z.B. nach Passwortwechsel) */
+    @Transactional
+    public void revokeAll(UUID userId) {
+        RefreshToken.update("revoked = true where userId = ?1 and revoked = false", userId);
+    }
+
+    /** Erzeugt einen Token in der Familie, speichert nur seinen Hash und liefert den Klartext */
+    private String create(UUID userId, UUID familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        OffsetDateTime now = OffsetDateTime.now();
+        // SHA-256 reicht hier: der Token hat 256 Bit Zufall, ein langsamer Hash bringt nichts
+        new RefreshToken(UUID.randomUUID(), userId, Digests.sha256Hex(raw), familyId, now, now.plus(lifespan)).persist();
+        return raw;
+    }
+}
@@ -0,0 +1,117 @@
+package com.elysion.application;
+
+import com.elysion.domain.ServiceClient;
+import com.elysion.security.Digests;
+import com.elysion.security.SigningKeyRing;
+import io.smallrye.jwt.build.Jwt;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Zugänge für Service-zu-Service-Aufrufe (z.B. Batch-Jobs des Product-Service).
+ * <p>
+ * Ein Client tauscht ID + Secret gegen ein kurzlebiges JWT mit der Rolle "Service". Kein User-Konto:
+ * kein Passwort-Login, keine Refresh-Tokens, und Endpoints mit Rolle "User" bleiben verschlossen.
+ */
+@ApplicationScoped
+public class ServiceClientService {
+
+    private static final Logger LOG = Logger.getLogger(ServiceClientService.class);
+    private static final int SECRET_BYTES = 32;
+    private static final String ROLE = "Service";
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Inject
+    SigningKeyRing keyRing;
+
+    @ConfigProperty(name = "security.service-token.lifespan", defaultValue = "PT15M")
+    Duration tokenLifespan;
+
+    /** Neuer Client; das Secret gibt es nur in dieser Antwort im Klartext */
+    public record Created(UUID id, String name, String secret) {}
+
+    public record ClientView(UUID id, String name, OffsetDateTime createdAt, OffsetDateTime revokedAt) {
+        static ClientView from(ServiceClient c) {
+            return new ClientView(c.id, c.name, c.createdAt, c.revokedAt);
+        }
+    }
+
+    /** @param token JWT, {@code expiresIn} in Sekunden */
+    public record IssuedToken(String token, long expiresIn) {}
+
+    /**
+     * @throws IllegalStateException Name bereits vergeben (auch gesperrt)
+     */
+    @Transactional
+    public Created create(String name) {
+        if (ServiceClient.count("name", name) > 0) {
+            throw new IllegalStateException("Service client already exists: " + name);
+        }
+        byte[] bytes = new byte[SECRET_BYTES];
+        random.nextBytes(bytes);
+        String secret = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        ServiceClient client = new ServiceClient(UUID.randomUUID(), name, Digests.sha256Hex(secret), OffsetDateTime.now());
+        client.persist();
+        LOG.infof("Service client '%s' created (%s)", name, client.id);
+        return new Created(client.id, name, secret);
+    }
+
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<ClientView> list() {
+        return ServiceClient.<ServiceClient>listAll().stream()
+                .map(ClientView::from)
+                .sorted((a, b) -> a.name().compareTo(b.name()))
+                .toList();
+    }
+
+    /**
+     * @throws IllegalArgumentException unbekannt oder bereits gesperrt
+     */
+    @Transactional
+    public void revoke(UUID id) {
+        if (ServiceClient.update("revokedAt = ?1 where id = ?2 and revokedAt is null", OffsetDateTime.now(), id) == 0) {
+            throw new IllegalArgumentException("Unknown or revoked service client");
+        }
+        LOG.infof("Service client %s revoked", id);
+    }
+
+    /**
+     * Client-Credentials gegen ein JWT ({@code sub} = "service:&lt;id&gt;", Rolle "Service").
+     *
+     * @throws IllegalArgumentException ID/Secret passen nicht oder Client gesperrt
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public IssuedToken issueToken(UUID clientId, String secret) {
+        if (clientId == null || secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("Invalid client credentials");
+        }
+        // Secret hat 256 Bit Zufall -> Lookup über den SHA-256 reicht, kein langsamer Hash
+        ServiceClient client = ServiceClient.find("secretHash", Digests.sha256Hex(secret)).firstResult();
+        if (client == null || !client.id.equals(clientId) || client.revokedAt != null) {
+            throw new IllegalArgumentException("Invalid client credentials");
+        }
+        SigningKeyRing.SigningKey signingKey = keyRing.current();
+        String token = Jwt.issuer("elysion-user-service")
+                .upn(client.name)
+                .subject("service:" + client.id)
+                .groups(Set.of(ROLE))
+                .audience("elysion-product-service")
+                .expiresIn(tokenLifespan)
+                .jws()
+                .keyId(signingKey.kid())
+                .sign(signingKey.privateKey());
+        return new IssuedToken(token, tokenLifespan.toSeconds());
+    }
+}
@@ -1,17 +1,213 @@
 package com.elysion.application;
 
+import com.elysion.domain.FilterCatalog;
+import com.elysion.domain.Importance;
 import com.elysion.domain.SustainabilityFilter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.narayana.jta.QuarkusTransactionException;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import org.jboss.logging.Logger;
+
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Katalog der Nachhaltigkeitsfilter.
+ * <p>
+ * Gelesen wird ausschließlich aus einem unveränderlichen {@link FilterCatalog} im Speicher. Admin-Änderungen
+ * laufen in einer eigenen Transaktion; danach wird der Schnappschuss neu geladen und atomar getauscht.
+ * Andere Instanzen erfahren davon über eine FILTERS-Invalidierung und laden ebenfalls neu.
+ */
 @ApplicationScoped
 public class SustainabilityFilterService {
 
+    private static final Logger LOG = Logger.getLogger(SustainabilityFilterService.class);
+
+    @Inject
+    CacheInvalidationBus invalidationBus;
+
+    @Inject
+    Event<CacheInvalidation> localEvents;
+
+    private final AtomicReference<FilterCatalog> catalog = new AtomicReference<>(FilterCatalog.EMPTY);
+
+    /** Stammdaten eines Filters für Anlage und Änderung */
+    public record FilterData(String label, String icon, String description, String examples, Importance importance) {}
+
+    void onStart(@Observes StartupEvent ev) {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Der Resync des CacheInvalidationBus nach dem (Re-)Connect lädt erneut
+            LOG.errorf("Could not load filter catalog: %s", e.getMessage());
+        }
+    }
+
+    /** Katalogänderungen anderer Instanzen (bzw. Resync nach Verbindungsabbruch) */
+    void onInvalidation(@Observes CacheInvalidation invalidation) {
+        if (invalidation.affects(CacheInvalidation.Region.FILTERS)) {
+            reload();
+        }
+    }
+
+    /** Aktueller Schnappschuss, ohne DB-Zugriff */
+    public FilterCatalog catalog() {
+        return catalog.get();
+    }
+
+    /**
+     * Gibt alle aktiven Sustainability-Filter zurück, nach Position sortiert.
+     */
+    public List<FilterCatalog.Entry> getAllFilters() {
+        return catalog().filters();
+    }
+
+    /** Version des Katalogs (per Trigger bei jeder Änderung an sustainability_filter hochgezählt) */
+    public long getCatalogVersion() {
+        return catalog().version();
+    }
+
+    /**
+     * Legt einen Filter an; er bekommt die nächste freie Position.
+     * Key-Check und max(position) laufen unter der Zeilensperre auf filter_catalog_version,
+     * parallele Anlagen warten also aufeinander. Eine Unique-Verletzung (23505) endet trotzdem als 409.
+     *
+     * @throws IllegalStateException Key existiert schon (auch stillgelegt)
+     */
+    public FilterCatalog.Entry create(String key, FilterData data) {
+        validate(data);
+        if (key == null || !key.matches("[a-z0-9-]{1,50}")) {
+            throw new IllegalArgumentException("Invalid filter key: " + key);
+        }
+        inNewTransaction(() -> {
+            SustainabilityFilter.getEntityManager()
+                    .createNativeQuery("SELECT version FROM filter_catalog_version WHERE id = 1 FOR UPDATE")
+                    .getSingleResult();
+            if (SustainabilityFilter.count("key", key) > 0) {
+                throw new IllegalStateException("Filter key already exists: " + key);
+            }
+            Integer maxPosition = SustainabilityFilter.getEntityManager()
+                    .createQuery("select max(f.position) from SustainabilityFilter f", Integer.class)
+                    .getSingleResult();
+            SustainabilityFilter filter = new SustainabilityFilter(UUID.randomUUID(), key, data.label(), data.icon(),
+                    data.description(), data.examples(), data.importance());
+            filter.position = maxPosition == null ? 0 : maxPosition + 1;
+            try {
+                filter.persistAndFlush();
+            } catch (PersistenceException e) {
+                if (UniqueConstraints.isUniqueViolation(e)) {
+                    throw new IllegalStateException("Filter key already exists: " + key);
+                }
+                throw e;
+            }
+            publishChange();
+            return null;
+        });
+        return changed().byKey(key);
+    }
+
+    /**
+     * Ändert die Stammdaten eines aktiven Filters (Key und Position bleiben).
+     *
+     * @throws IllegalArgumentException unbekannter oder stillgelegter Key
+     */
+    public FilterCatalog.Entry update(String key, FilterData data) {
+        validate(data);
+        inNewTransaction(() -> {
+            SustainabilityFilter filter = findActive(key);
+            filter.label = data.label();
+            filter.icon = data.icon();
+            filter.description = data.description();
+            filter.examples = data.examples();
+            filter.importance = data.importance();
+            publishChange();
+            return null;
+        });
+        return changed().byKey(key);
+    }
+
     /**
-     * Gibt alle Sustainability-Filter zurück.
-     * Später hier z.B. Caching, Sortierung oder komplexe Business-Logik ergänzen.
+     * Legt einen Filter still. Bestehende Präferenzen bleiben in der DB, werden aber nicht mehr ausgeliefert;
+     * die Position wird nie neu vergeben.
+     *
+     * @throws IllegalArgumentException unbekannter oder bereits stillgelegter Key
      */
-    public List<SustainabilityFilter> getAllFilters() {
-        return SustainabilityFilter.listAll();
+    public void retire(String key) {
+        inNewTransaction(() -> {
+            findActive(key).retiredAt = OffsetDateTime.now();
+            publishChange();
+            return null;
+        });
+        changed();
+    }
+
+    /** Lädt den Katalog neu; ein älterer Stand ersetzt nie einen neueren */
+    public void reload() {
+        FilterCatalog loaded = inNewTransaction(this::load);
+        FilterCatalog current = catalog.accumulateAndGet(loaded,
+                (cur, next) -> next.version() >= cur.version() ? next : cur);
+        if (current == loaded) {
+            LOG.debugf("Filter catalog v%d loaded (%d filters)", loaded.version(), loaded.size());
+        }
+    }
+
+    private FilterCatalog load() {
+        // Version zuerst: ein Race liefert höchstens neuere Daten unter alter Version, die nächste
+        // Invalidierung lädt dann erneut
+        long version = ((Number) SustainabilityFilter.getEntityManager()
+                .createNativeQuery("SELECT version FROM filter_catalog_version WHERE id = 1")
+                .getSingleResult()).longValue();
+        List<SustainabilityFilter> filters = SustainabilityFilter.list("retiredAt is null");
+        return new FilterCatalog(version, filters.stream().map(FilterCatalog.Entry::from).toList());
+    }
+
+    /** Lokal sofort (Katalog + abhängige Caches), andere Instanzen nach dem Commit über den Bus */
+    private FilterCatalog changed() {
+        localEvents.fire(new CacheInvalidation(CacheInvalidation.Region.FILTERS, null));
+        return catalog();
+    }
+
+    private void publishChange() {
+        invalidationBus.publish(new CacheInvalidation(CacheInvalidation.Region.FILTERS, null));
+    }
+
+    /**
+     * Eigene Transaktion, damit nach dem Commit neu geladen werden kann.
+     * Fachliche Exceptions kommen ausgepackt beim Aufrufer an.
+     */
+    private static <T> T inNewTransaction(Callable<T> work) {
+        try {
+            return QuarkusTransaction.requiringNew().call(work);
+        } catch (QuarkusTransactionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static SustainabilityFilter findActive(String key) {
+        SustainabilityFilter filter = SustainabilityFilter.find("key = ?1 and retiredAt is null", key).firstResult();
+        if (filter == null) {
+            throw new IllegalArgumentException("Unknown filter key: " + key);
+        }
+        return filter;
+    }
+
+    private static void validate(FilterData data) {
+        if (data == null) throw new IllegalArgumentException("filter is null");
+        if (data.label() == null || data.label().isBlank()) throw new IllegalArgumentException("label is blank");
+        if (data.icon() == null || data.icon().isBlank()) throw new IllegalArgumentException("icon is blank");
+        if (data.description() == null) throw new IllegalArgumentException("description is null");
+        if (data.examples() == null) throw new IllegalArgumentException("examples is null");
+        if (data.importance() == null) throw new IllegalArgumentException("importance is null");
     }
-}
\ No newline at end of file
+}
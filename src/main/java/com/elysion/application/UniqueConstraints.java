@@ -0,0 +1,48 @@
+package com.elysion.application;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Erkennt Unique-Verletzungen (v.a. auf den E-Mail-Spalten von {@code users}), damit Schreibpfade
+ * ohne vorherigen Existenz-Check auskommen und trotzdem sauber mit 409 antworten.
+ */
+final class UniqueConstraints {
+
+    /** Postgres-SQLState für unique_violation */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private static final Set<String> EMAIL_CONSTRAINTS = Set.of(
+            "users_email_key",
+            "ux_users_email_normalized",
+            "ux_users_pending_email_normalized");
+
+    private UniqueConstraints() {
+    }
+
+    static boolean isEmailConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && cve.getConstraintName() != null) {
+                return EMAIL_CONSTRAINTS.contains(cve.getConstraintName().toLowerCase(Locale.ROOT));
+            }
+            if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                String msg = String.valueOf(sql.getMessage());
+                return EMAIL_CONSTRAINTS.stream().anyMatch(msg::contains);
+            }
+        }
+        return false;
+    }
+
+    /** Irgendeine Unique-Verletzung in der Cause-Kette */
+    static boolean isUniqueViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
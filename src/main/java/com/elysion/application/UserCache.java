@@ -0,0 +1,125 @@
+package com.elysion.application;
+
+import com.elysion.domain.User;
+import com.elysion.domain.UserProfile;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * In-Process-Cache der {@link UserProfile}s, per ID adressierbar.
+ * <p>
+ * Schreibende Methoden müssen {@link #evict(UUID)} aufrufen. Läuft eine Transaktion,
+ * wird zusätzlich nach deren Abschluss erneut verdrängt, damit kein paralleler Leser
+ * den alten Stand zwischen Update und Commit wieder in den Cache legt.
+ */
+@ApplicationScoped
+public class UserCache {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    TransactionSynchronizationRegistry txRegistry;
+
+    @Inject
+    CacheInvalidationBus invalidationBus;
+
+    @Inject
+    PreferenceBitmapIndex preferenceIndex;
+
+    @ConfigProperty(name = "users.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "users.cache.max-size", defaultValue = "100000")
+    long maxSize;
+
+    @ConfigProperty(name = "users.cache.ttl", defaultValue = "PT5M")
+    Duration ttl;
+
+    private Cache<UUID, UserProfile> byId;
+
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, byId, "users-by-id");
+    }
+
+    /** @return das Profil oder null, wenn es den User nicht gibt */
+    public UserProfile get(UUID id) {
+        if (id == null) {
+            return null;
+        }
+        if (!enabled) {
+            return load(id);
+        }
+        return byId.get(id, this::load);
+    }
+
+    /**
+     * Verdrängt den User jetzt und - falls eine Transaktion läuft - nochmals nach deren Abschluss.
+     * Andere Instanzen werden über den {@link CacheInvalidationBus} informiert.
+     */
+    public void evict(UUID id) {
+        evictNow(id);
+        invalidationBus.publish(new CacheInvalidation(CacheInvalidation.Region.USER, id.toString()));
+        preferenceIndex.markDirty(id);
+        if (txRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+            txRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+    }
+
+    /** Invalidierungen anderer Instanzen (bzw. Resync nach Verbindungsabbruch) */
+    void onInvalidation(@Observes CacheInvalidation invalidation) {
+        if (!invalidation.affects(CacheInvalidation.Region.USER)) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            invalidateAll();
+        } else {
+            evictNow(UUID.fromString(invalidation.key()));
+        }
+    }
+
+    void evictNow(UUID id) {
+        byId.invalidate(id);
+    }
+
+    /** Nur die Profil-Spalten, ohne Entity im Persistence Context (kein Hash/Salt, kein Dirty-Checking) */
+    private UserProfile load(UUID id) {
+        return User.getEntityManager()
+                .createQuery("select new com.elysion.domain.UserProfile(u.id, u.email, u.firstName, u.lastName, "
+                        + "u.role, u.active, u.pendingEmail, u.createdAt, u.version) from User u where u.id = :id", UserProfile.class)
+                .setParameter("id", id)
+                .getResultStream().findFirst().orElse(null);
+    }
+}
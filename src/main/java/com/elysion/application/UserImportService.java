@@ -0,0 +1,443 @@
+package com.elysion.application;
+
+import com.elysion.domain.TokenPurpose;
+import com.elysion.domain.User;
+import com.elysion.security.PasswordService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Massen-Import von Usern (z.B. Onboarding eines Partner-Shops).
+ * <p>
+ * Der Body wird zeilenweise gelesen und in Chunks verarbeitet: Passwörter werden parallel auf einem
+ * eigenen, begrenzten Pool gehasht (der Login-Pool bleibt frei), danach wird der Chunk per JDBC-Batch
+ * in einer Transaktion eingefügt. Pro Zeile geht ein Ergebnis an den Aufrufer. Der Heap-Bedarf hängt
+ * nur von der Chunk-Größe ab, nicht von der Größe des Imports.
+ */
+@ApplicationScoped
+public class UserImportService {
+
+    private static final Logger LOG = Logger.getLogger(UserImportService.class);
+
+    /** Bereits vergebene E-Mails liefern 0 statt einer Exception, damit der Batch weiterläuft */
+    private static final String INSERT_SQL = """
+            INSERT INTO users (id, email, email_normalized, password_hash, salt, role, active,
+                               first_name, last_name, created_at)
+            VALUES (?, ?, ?, ?, ?, 'User', ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final Set<String> CSV_COLUMNS = Set.of("email", "password", "firstname", "lastname");
+
+    @Inject
+    PasswordService passwordService;
+
+    @Inject
+    MailService mailService;
+
+    @Inject
+    UserTokenService tokenService;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "users.import.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    /** Obergrenze je Import-Request; größere Importe auf mehrere Requests verteilen (Duplikate werden gemeldet) */
+    @ConfigProperty(name = "users.import.max-body-size", defaultValue = "10M")
+    MemorySize maxBodySize;
+
+    /** Default: halbe Kernzahl, damit parallel laufende Logins noch CPU bekommen */
+    @ConfigProperty(name = "users.import.hashing-threads")
+    Optional<Integer> hashingThreads;
+
+    private ExecutorService hashingPool;
+    private ObjectReader rowReader;
+    private Counter created;
+    private Counter duplicates;
+    private Counter invalid;
+    private Counter failed;
+
+    public enum Format { NDJSON, CSV }
+
+    /** Eine Zeile des Imports (NDJSON-Objekt bzw. CSV-Zeile mit Header email,password,firstName,lastName) */
+    public record ImportRow(@NotBlank @Email String email,
+                            @NotBlank @Size(min = 8) String password,
+                            @NotBlank String firstName,
+                            @NotBlank String lastName) {}
+
+    /** Ergebnis je Eingabezeile; status = created | duplicate | invalid | failed */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record RowResult(long line, String email, String status, UUID id, String error) {}
+
+    public record Summary(long created, long duplicates, long invalid, long failed) {}
+
+    /** Nimmt die Ergebnisse eines fertigen Chunks entgegen (z.B. zum Streamen an den Client) */
+    @FunctionalInterface
+    public interface ResultSink {
+        void accept(List<RowResult> results) throws IOException;
+    }
+
+    @PostConstruct
+    void init() {
+        int threads = hashingThreads.orElse(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger counter = new AtomicInteger();
+        hashingPool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "user-import-bcrypt-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        rowReader = objectMapper.readerFor(ImportRow.class);
+        created = registry.counter("users.import.rows", "result", "created");
+        duplicates = registry.counter("users.import.rows", "result", "duplicate");
+        invalid = registry.counter("users.import.rows", "result", "invalid");
+        failed = registry.counter("users.import.rows", "result", "failed");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    /**
+     * @param activate true: Konten sind sofort aktiv (Partner hat die Adressen bereits verifiziert), keine Mail;
+     *                 false: Double-Opt-In wie bei /users/register
+     * @throws IllegalArgumentException CSV ohne gültigen Header oder Body größer als
+     *                                  {@code users.import.max-body-size} (alle vollständigen Zeilen davor sind verarbeitet)
+     */
+    public Summary importUsers(InputStream body, Format format, boolean activate, ResultSink sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new BoundedInputStream(body, maxBodySize.asLongValue()), StandardCharsets.UTF_8));
+        String[] header = format == Format.CSV ? readCsvHeader(reader) : null;
+
+        long[] totals = new long[4];
+        List<Pending> chunk = new ArrayList<>(chunkSize);
+        List<RowResult> results = new ArrayList<>(chunkSize);
+        long lineNo = header != null ? 1 : 0;
+        String line;
+        try {
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                parse(lineNo, line, header, chunk, results);
+                if (chunk.size() + results.size() >= chunkSize) {
+                    flushChunk(chunk, results, activate, sink, totals);
+                }
+            }
+        } catch (BodyTooLargeException e) {
+            // Angefangene Zeile verwerfen, alles davor noch einfügen -> Client kann ab lineNo + 1 fortsetzen
+            flushChunk(chunk, results, activate, sink, totals);
+            LOG.warnf("User import stopped after line %d: body exceeds %d bytes", lineNo, e.limit);
+            throw new IllegalArgumentException("Import body exceeds " + e.limit + " bytes; stopped after line "
+                    + lineNo + ", continue with the remaining lines in a new request");
+        }
+        flushChunk(chunk, results, activate, sink, totals);
+
+        Summary summary = new Summary(totals[0], totals[1], totals[2], totals[3]);
+        LOG.infof("User import finished: %s", summary);
+        return summary;
+    }
+
+    private record Pending(long line, ImportRow row) {}
+
+    private static final class BodyTooLargeException extends IOException {
+        final long limit;
+
+        BodyTooLargeException(long limit) {
+            super("Body exceeds " + limit + " bytes");
+            this.limit = limit;
+        }
+    }
+
+    /** Zählt gelesene Bytes und bricht beim Überschreiten der Obergrenze ab */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long read;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws BodyTooLargeException {
+            read += n;
+            if (read > limit) {
+                throw new BodyTooLargeException(limit);
+            }
+        }
+    }
+
+    private record Prepared(long line, ImportRow row, UUID id, String salt, Future<String> hash) {}
+
+    private void parse(long lineNo, String line, String[] header, List<Pending> chunk, List<RowResult> results) {
+        ImportRow row;
+        try {
+            row = header != null ? fromCsv(line, header) : rowReader.readValue(line);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            results.add(new RowResult(lineNo, null, "invalid", null, "Malformed row"));
+            return;
+        }
+        Set<ConstraintViolation<ImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            String error = violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            results.add(new RowResult(lineNo, row.email(), "invalid", null, error));
+            return;
+        }
+        chunk.add(new Pending(lineNo, row));
+    }
+
+    private void flushChunk(List<Pending> chunk, List<RowResult> results, boolean activate,
+                            ResultSink sink, long[] totals) throws IOException {
+        if (!chunk.isEmpty()) {
+            results.addAll(insert(chunk, activate));
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+        // Ergebnisse in Eingabereihenfolge ausgeben (ungültige Zeilen wurden vorab einsortiert)
+        results.sort((a, b) -> Long.compare(a.line(), b.line()));
+        for (RowResult r : results) {
+            switch (r.status()) {
+                case "created" -> { totals[0]++; created.increment(); }
+                case "duplicate" -> { totals[1]++; duplicates.increment(); }
+                case "invalid" -> { totals[2]++; invalid.increment(); }
+                default -> { totals[3]++; failed.increment(); }
+            }
+        }
+        sink.accept(results);
+        chunk.clear();
+        results.clear();
+    }
+
+    private List<RowResult> insert(List<Pending> chunk, boolean activate) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Prepared> prepared = new ArrayList<>(chunk.size());
+        for (Pending p : chunk) {
+            String salt = passwordService.generateSalt();
+            String password = p.row().password();
+            prepared.add(new Prepared(p.line(), p.row(), UUID.randomUUID(), salt,
+                    hashingPool.submit(() -> passwordService.hashPassword(password, salt))));
+        }
+
+        List<RowResult> results = new ArrayList<>(chunk.size());
+        int[] counts;
+        try (Connection c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERT_SQL)) {
+                Timestamp createdAt = Timestamp.from(now.toInstant());
+                for (Prepared p : prepared) {
+                    String email = p.row().email().trim();
+                    ps.setObject(1, p.id());
+                    ps.setString(2, email);
+                    ps.setString(3, User.normalizeEmail(email));
+                    ps.setString(4, p.hash().get());
+                    ps.setString(5, p.salt());
+                    ps.setBoolean(6, activate);
+                    ps.setString(7, p.row().firstName());
+                    ps.setString(8, p.row().lastName());
+                    ps.setTimestamp(9, createdAt);
+                    ps.addBatch();
+                }
+                counts = ps.executeBatch();
+                if (!activate) {
+                    // Tokens und Aktivierungs-Mails in dieselbe Transaktion wie die neuen User
+                    mailService.enqueueAll(c, activationMails(c, prepared, counts));
+                }
+                c.commit();
+            } catch (Exception e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failAll(prepared, "Import interrupted");
+        } catch (SQLException | ExecutionException | RuntimeException e) {
+            LOG.errorf(e, "User import chunk of %d rows failed", prepared.size());
+            return failAll(prepared, "Chunk failed: " + e.getMessage());
+        }
+
+        for (int i = 0; i < prepared.size(); i++) {
+            Prepared p = prepared.get(i);
+            // Ohne reWriteBatchedInserts liefert pgjdbc die echte Zeilenanzahl je Statement
+            if (counts[i] == 0) {
+                results.add(new RowResult(p.line(), p.row().email(), "duplicate", null, "E-Mail already in use"));
+                continue;
+            }
+            results.add(new RowResult(p.line(), p.row().email(), "created", p.id(), null));
+        }
+        return results;
+    }
+
+    private List<OutgoingMail> activationMails(Connection c, List<Prepared> prepared, int[] counts)
+            throws SQLException {
+        List<Prepared> inserted = new ArrayList<>(prepared.size());
+        for (int i = 0; i < prepared.size(); i++) {
+            if (counts[i] != 0) {
+                inserted.add(prepared.get(i));
+            }
+        }
+        List<String> tokens = tokenService.issueAll(c, inserted.stream().map(Prepared::id).toList(),
+                TokenPurpose.ACTIVATION);
+        List<OutgoingMail> mails = new ArrayList<>(inserted.size());
+        for (int i = 0; i < inserted.size(); i++) {
+            mails.add(mailService.activationMail(inserted.get(i).row().email().trim(), tokens.get(i)));
+        }
+        return mails;
+    }
+
+    private List<RowResult> failAll(List<Prepared> prepared, String error) {
+        prepared.forEach(p -> p.hash().cancel(true));
+        List<RowResult> results = new ArrayList<>(prepared.size());
+        for (Prepared p : prepared) {
+            results.add(new RowResult(p.line(), p.row().email(), "failed", null, error));
+        }
+        return results;
+    }
+
+    // ======== CSV ========
+
+    private String[] readCsvHeader(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IllegalArgumentException("CSV header missing");
+        }
+        if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1); // BOM aus Excel-Exporten
+        }
+        List<String> columns = splitCsv(line);
+        String[] header = new String[columns.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = columns.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+        if (!Set.of(header).containsAll(CSV_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must contain email,password,firstName,lastName");
+        }
+        return header;
+    }
+
+    private static ImportRow fromCsv(String line, String[] header) {
+        List<String> values = splitCsv(line);
+        if (values.size() != header.length) {
+            throw new IllegalArgumentException("Column count mismatch");
+        }
+        String email = null, password = null, firstName = null, lastName = null;
+        for (int i = 0; i < header.length; i++) {
+            switch (header[i]) {
+                case "email" -> email = values.get(i);
+                case "password" -> password = values.get(i);
+                case "firstname" -> firstName = values.get(i);
+                case "lastname" -> lastName = values.get(i);
+                default -> { } // unbekannte Spalten ignorieren
+            }
+        }
+        return new ImportRow(email, password, firstName, lastName);
+    }
+
+    /** RFC-4180-Zeile ohne Zeilenumbrüche in Feldern: Komma-getrennt, "..." mit "" als Escape */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(ch);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
@@ -1,11 +1,17 @@
 package com.elysion.application;
 
+import com.elysion.domain.TokenPurpose;
 import com.elysion.domain.User;
+import com.elysion.security.PasswordHashingExecutor;
 import com.elysion.security.PasswordService;
+import com.elysion.security.SignedTokenCodec;
+import com.elysion.security.SigningKeyRing;
 import io.smallrye.jwt.build.Jwt;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
@@ -17,23 +23,41 @@ import java.util.UUID;
 @ApplicationScoped
 public class UserService {
 
+    private static final Logger LOG = Logger.getLogger(UserService.class);
+
     @Inject
     PasswordService passwordService;
 
+    @Inject
+    PasswordHashingExecutor hashingExecutor;
+
     @Inject
     MailService mailService;
 
-    public User register(String email, String plainPassword, String firstName, String lastName) {
-        if (User.find("email", email).firstResult() != null) {
-            throw new IllegalArgumentException("E-Mail already in use");
-        }
+    @Inject
+    RefreshTokenService refreshTokenService;
 
+    @Inject
+    SigningKeyRing keyRing;
+
+    @Inject
+    UserCache userCache;
+
+    @Inject
+    UserTokenService tokenService;
+
+    /**
+     * Legt den User mit genau einem INSERT an. Ob die E-Mail schon vergeben ist, entscheidet der
+     * Unique-Index (auch bei parallelen Registrierungen) - kein vorheriges SELECT.
+     * Erwartet eine laufende Transaktion.
+     */
+    public User register(String email, String plainPassword, String firstName, String lastName) {
         String salt = passwordService.generateSalt();
-        String hash = passwordService.hashPassword(plainPassword, salt);
+        String hash = hashingExecutor.hashPassword(plainPassword, salt);
 
         User user = new User();
         user.id = UUID.randomUUID();
-        user.email = email;
+        user.email = email.trim();
         user.salt = salt;
         user.passwordHash = hash;
         user.createdAt = OffsetDateTime.now();
@@ -45,55 +69,113 @@ public class UserService {
 
         // ✨ DOI
         user.active = false;
-        user.activationToken = UUID.randomUUID().toString();
-        user.activationTokenCreated = OffsetDateTime.now();
 
-        user.persist();
+        try {
+            user.persistAndFlush();
+        } catch (PersistenceException e) {
+            if (UniqueConstraints.isEmailConflict(e)) {
+                throw new IllegalArgumentException("E-Mail already in use");
+            }
+            throw e;
+        }
 
-        mailService.sendActivationMail(user); // ✉️ Dummy-Funktion, siehe unten
+        String token = tokenService.issueNew(user.id, TokenPurpose.ACTIVATION);
+        mailService.sendActivationMail(user, token);
 
         return user;
     }
 
+    /**
+     * Ein einziges bedingtes UPDATE: schlägt fehl, wenn die Adresse schon als E-Mail eines Users existiert
+     * (Subquery) oder bereits bei einem anderen User aussteht (Unique-Index auf pending_email_normalized).
+     * Erwartet eine laufende Transaktion.
+     */
     public void changeEmail(User user, String newEmail) {
-        if (User.find("email", newEmail).firstResult() != null ||
-                User.find("pendingEmail", newEmail).firstResult() != null) {
+        String pendingEmail = newEmail.trim();
+        String normalized = User.normalizeEmail(pendingEmail);
+        int updated;
+        try {
+            updated = User.update("pendingEmail = ?1, pendingEmailNormalized = ?2 where id = ?3 "
+                            + "and not exists (select 1 from User o where o.emailNormalized = ?2)",
+                    pendingEmail, normalized, user.id);
+        } catch (PersistenceException e) {
+            if (UniqueConstraints.isEmailConflict(e)) {
+                throw new IllegalArgumentException("E-Mail already in use");
+            }
+            throw e;
+        }
+        if (updated == 0) {
             throw new IllegalArgumentException("E-Mail already in use");
         }
-        // Statt sofortiges Überschreiben:
-        user.pendingEmail = newEmail;
-        user.activationToken = UUID.randomUUID().toString();
-        user.activationTokenCreated = OffsetDateTime.now();
-        user.persist();
+        // Bulk-Update umgeht den Persistence Context: Entity lösen, damit beim Commit kein zweites UPDATE folgt
+        User.getEntityManager().detach(user);
+        user.pendingEmail = pendingEmail;
+        user.pendingEmailNormalized = normalized;
+        userCache.evict(user.id);
 
         // E-Mail an die neue Adresse senden
-        mailService.sendEmailChangeConfirmation(user);
+        String token = tokenService.issue(user.id, TokenPurpose.EMAIL_CHANGE);
+        mailService.sendEmailChangeConfirmation(user, token);
     }
 
 
     public void changePassword(User user, String currentPassword, String newPassword) {
-        if (!passwordService.verifyPassword(currentPassword, user.salt, user.passwordHash)) {
+        if (!hashingExecutor.verifyPassword(currentPassword, user.salt, user.passwordHash)) {
             throw new IllegalArgumentException("Incorrect current password");
         }
         String newSalt = passwordService.generateSalt();
-        String newHash = passwordService.hashPassword(newPassword, newSalt);
+        String newHash = hashingExecutor.hashPassword(newPassword, newSalt);
         user.salt = newSalt;
         user.passwordHash = newHash;
         user.persist();
+        userCache.evict(user.id);
+
+        // Bestehende Sessions dürfen nicht per Refresh weiterleben
+        refreshTokenService.revokeAll(user.id);
     }
 
     public User authenticate(String email, String plainPassword) {
-        User user = User.find("email", email).firstResult();
-        if (user == null || !passwordService.verifyPassword(plainPassword, user.salt, user.passwordHash)) {
+        User user = User.findByEmail(email);
+        if (user == null || !hashingExecutor.verifyPassword(plainPassword, user.salt, user.passwordHash)) {
             throw new IllegalArgumentException("Invalid credentials");
         }
         if (!user.active) {
             throw new IllegalArgumentException("Account not activated");
         }
+        if (passwordService.needsRehash(user.passwordHash)) {
+            rehashPassword(user, plainPassword);
+        }
         return user;
     }
 
-    /** Erzeugt ein JWT mit 2-Stunden-Laufzeit und der Rolle aus dem User-Objekt */
+    /**
+     * Hebt den gespeicherten Hash auf den aktuellen BCrypt-Cost an (Klartext liegt nur beim Login vor).
+     * Fehler hier dürfen den Login nicht scheitern lassen.
+     */
+    void rehashPassword(User user, String plainPassword) {
+        try {
+            String oldHash = user.passwordHash;
+            String newHash = hashingExecutor.hashPassword(plainPassword, user.salt);
+            if (updatePasswordHash(user.id, oldHash, newHash)) {
+                user.passwordHash = newHash;
+            }
+        } catch (RuntimeException e) {
+            LOG.warnf("Rehash for user %s skipped: %s", user.id, e.getMessage());
+        }
+    }
+
+    /** Nur überschreiben, wenn sich der Hash zwischenzeitlich nicht geändert hat (z.B. Passwortwechsel) */
+    @Transactional
+    boolean updatePasswordHash(UUID userId, String expectedHash, String newHash) {
+        userCache.evict(userId);
+        return User.update("passwordHash = ?1 where id = ?2 and passwordHash = ?3",
+                newHash, userId, expectedHash) > 0;
+    }
+
+    /**
+     * Erzeugt ein JWT mit 2-Stunden-Laufzeit und der Rolle aus dem User-Objekt.
+     * Signiert mit dem jüngsten aktiven Key; dessen kid steht im Header.
+     */
     public String generateJwt(User user) {
         Set<String> groups = new HashSet<>();
         groups.add("User"); // Basisrolle immer
@@ -101,43 +183,44 @@ public class UserService {
             groups.add(user.role); // z.B. "Seller" oder "Admin"
         }
 
+        SigningKeyRing.SigningKey signingKey = keyRing.current();
         return Jwt.issuer("elysion-user-service")
                 .upn(user.email)
                 .subject(user.id.toString())
                 .groups(groups)
                 .audience("elysion-product-service")
                 .expiresIn(Duration.ofHours(2))
-                .sign();
+                .jws()
+                .keyId(signingKey.kid())
+                .sign(signingKey.privateKey());
     }
 
     /**
-     * Sucht einen User anhand seiner E‑Mail-Adresse.
+     * Sucht einen User anhand seiner E‑Mail-Adresse (Groß-/Kleinschreibung egal).
      *
      * @param email Die E‑Mail, nach der gesucht wird.
      * @return Der gefundene User oder null, wenn keiner existiert.
      */
     public User findByEmail(String email) {
-        return User.find("email", email).firstResult();
+        return User.findByEmail(email);
     }
 
     @Transactional
     public User confirmEmail(String token) {
-        User user = User.find("activationToken", token).firstResult();
+        // Gefälschte/abgelaufene Tokens scheitern hier ohne DB-Zugriff
+        SignedTokenCodec.Claims claims = tokenService.consume(token);
+        User user = User.findById(claims.userId());
         if (user == null) {
             throw new IllegalArgumentException("Invalid token");
         }
-        if (user.activationTokenCreated.isBefore(OffsetDateTime.now().minusHours(24))) {
-            throw new IllegalStateException("Token expired");
-        }
 
-        if (user.pendingEmail != null) {
+        if (claims.purpose() == TokenPurpose.EMAIL_CHANGE && user.pendingEmail != null) {
             user.email = user.pendingEmail;
             user.pendingEmail = null;
         }
         user.active = true;
-        user.activationToken = null;
-        user.activationTokenCreated = null;
         user.persist();
+        userCache.evict(user.id);
         return user;
     }
 
@@ -152,6 +235,7 @@ public class UserService {
         }
         user.role = "Seller";
         user.persist();
+        userCache.evict(user.id);
         return user;
     }
 
@@ -162,12 +246,13 @@ public class UserService {
         if (!u.active) throw new IllegalStateException("User not activated");
         u.role = "Admin";
         u.persist();
+        userCache.evict(u.id);
         return u;
     }
 
     @Transactional
     public void resendActivationToken(String email) {
-        User user = User.find("email", email).firstResult();
+        User user = User.findByEmail(email);
         if (user == null) {
             throw new IllegalArgumentException("User not found");
         }
@@ -176,15 +261,12 @@ public class UserService {
         }
 
         // Optional: Rate Limit (z. B. nicht öfter als alle 15 Minuten)
-        if (user.activationTokenCreated != null &&
-                user.activationTokenCreated.isAfter(OffsetDateTime.now().minusMinutes(15))) {
+        OffsetDateTime lastIssued = tokenService.lastIssuedAt(user.id, TokenPurpose.ACTIVATION);
+        if (lastIssued != null && lastIssued.isAfter(OffsetDateTime.now().minusMinutes(15))) {
             throw new IllegalStateException("Token was recently sent");
         }
 
-        user.activationToken = UUID.randomUUID().toString();
-        user.activationTokenCreated = OffsetDateTime.now();
-        user.persist();
-
-        mailService.sendActivationMail(user);
+        String token = tokenService.issue(user.id, TokenPurpose.ACTIVATION);
+        mailService.sendActivationMail(user, token);
     }
 }
\ No newline at end of file
@@ -1,12 +1,21 @@
 package com.elysion.application;
 
+import com.elysion.domain.FilterCatalog;
 import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceView;
 import com.elysion.domain.SustainabilityFilter;
 import com.elysion.domain.User;
 import com.elysion.domain.UserSustainabilityPref;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -14,28 +23,118 @@ import java.util.stream.Collectors;
 public class UserSustainabilityPrefService {
 
     /**
-     * Liefert alle Präferenzen des Users (eine pro Filter).
+     * Ersetzt alle Präferenzen eines Users in einer Anweisung: unbekannte Keys kommen mit importance NULL
+     * zurück, nicht mehr enthaltene aktive Filter werden gelöscht, der Rest per Upsert geschrieben.
+     * Präferenzen zu stillgelegten Filtern bleiben unangetastet.
+     * Die CTEs sehen denselben Snapshot; DELETE und INSERT betreffen disjunkte Zeilen.
+     */
+    private static final String REPLACE_SQL = """
+            WITH input(filter_key, importance) AS (
+                SELECT * FROM unnest(?::text[], ?::text[])
+            ),
+            resolved AS (
+                SELECT f.id AS filter_id, i.importance
+                FROM input i JOIN sustainability_filter f ON f.filter_key = i.filter_key AND f.retired_at IS NULL
+            ),
+            deleted AS (
+                DELETE FROM user_sustainability_pref p
+                WHERE p.user_id = ? AND p.filter_id NOT IN (SELECT filter_id FROM resolved)
+                  AND p.filter_id IN (SELECT id FROM sustainability_filter WHERE retired_at IS NULL)
+            ),
+            upserted AS (
+                INSERT INTO user_sustainability_pref (id, user_id, filter_id, importance)
+                SELECT gen_random_uuid(), ?, r.filter_id, r.importance FROM resolved r
+                ON CONFLICT (user_id, filter_id) DO UPDATE SET importance = EXCLUDED.importance
+                RETURNING filter_id, importance
+            )
+            SELECT f.filter_key, u.importance FROM upserted u JOIN sustainability_filter f ON f.id = u.filter_id
+            UNION ALL
+            SELECT i.filter_key, NULL FROM input i
+            WHERE NOT EXISTS (SELECT 1 FROM sustainability_filter f
+                              WHERE f.filter_key = i.filter_key AND f.retired_at IS NULL)
+            """;
+
+    /** Alle Präferenzen mehrerer User; User ohne Präferenzen mit filter_id NULL, unbekannte IDs fehlen */
+    private static final String BATCH_SQL = """
+            SELECT u.id, p.filter_id, p.importance
+            FROM users u LEFT JOIN user_sustainability_pref p ON p.user_id = u.id
+            WHERE u.id = ANY(?)
+            """;
+
+    /** Postgres-SQLState für foreign_key_violation */
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    @Inject
+    CacheInvalidationBus invalidationBus;
+
+    @Inject
+    PreferenceVectorCache vectorCache;
+
+    @Inject
+    PreferenceBitmapIndex preferenceIndex;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @ConfigProperty(name = "preferences.batch.max-users", defaultValue = "1000")
+    int batchMaxUsers;
+
+    /**
+     * Versionszähler der Präferenzen (per Trigger bei jeder Änderung hochgezählt) - für ETags.
+     *
+     * @return die Version oder null, wenn es den User nicht gibt
      */
     @Transactional(Transactional.TxType.SUPPORTS)
-    public List<UserSustainabilityPref> getPreferences(User user) {
-        if (user == null) throw new IllegalArgumentException("user is null");
-        return UserSustainabilityPref.list("user", user);
+    public Long getPreferencesVersion(UUID userId) {
+        return User.getEntityManager()
+                .createQuery("select u.prefsVersion from User u where u.id = :userId", Long.class)
+                .setParameter("userId", userId)
+                .getResultStream().findFirst().orElse(null);
+    }
+
+    /**
+     * Liefert alle Präferenzen des Users (eine pro Filter) - eine Query ohne Join und ohne Entities,
+     * die Keys kommen aus dem {@link FilterCatalog}. Stillgelegte Filter werden ausgelassen.
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public List<PreferenceView> getPreferences(UUID userId) {
+        if (userId == null) throw new IllegalArgumentException("user is null");
+        FilterCatalog catalog = filterService.catalog();
+        List<Object[]> rows = UserSustainabilityPref.getEntityManager()
+                .createQuery("select p.filter.id, p.importance from UserSustainabilityPref p "
+                        + "where p.user.id = :userId", Object[].class)
+                .setParameter("userId", userId)
+                .getResultList();
+        List<PreferenceView> prefs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            FilterCatalog.Entry filter = catalog.byId((UUID) row[0]);
+            if (filter != null) {
+                prefs.add(new PreferenceView(filter.key(), (Importance) row[1]));
+            }
+        }
+        prefs.sort(Comparator.comparing(PreferenceView::filterKey));
+        return prefs;
     }
 
     /**
      * Liefert die Präferenz für einen konkreten Filter (per filterKey), falls vorhanden.
      */
     @Transactional(Transactional.TxType.SUPPORTS)
-    public Optional<UserSustainabilityPref> getPreference(User user, String filterKey) {
-        if (user == null) throw new IllegalArgumentException("user is null");
+    public Optional<PreferenceView> getPreference(UUID userId, String filterKey) {
+        if (userId == null) throw new IllegalArgumentException("user is null");
         if (filterKey == null || filterKey.isBlank()) throw new IllegalArgumentException("filterKey is blank");
 
-        SustainabilityFilter filter = SustainabilityFilter.find("key", filterKey).firstResult();
+        FilterCatalog.Entry filter = filterService.catalog().byKey(filterKey);
         if (filter == null) return Optional.empty();
 
-        return Optional.ofNullable(
-                UserSustainabilityPref.find("user = ?1 and filter = ?2", user, filter).firstResult()
-        );
+        return UserSustainabilityPref.getEntityManager()
+                .createQuery("select p.importance from UserSustainabilityPref p "
+                        + "where p.user.id = :userId and p.filter.id = :filterId", Importance.class)
+                .setParameter("userId", userId)
+                .setParameter("filterId", filter.id())
+                .getResultStream()
+                .findFirst()
+                .map(importance -> new PreferenceView(filter.key(), importance));
     }
 
     /**
@@ -43,26 +142,30 @@ public class UserSustainabilityPrefService {
      * Gibt die aktuelle/aktualisierte Preference zurück.
      */
     @Transactional
-    public UserSustainabilityPref setPreference(User user, String filterKey, Importance importance) {
+    public PreferenceView setPreference(User user, String filterKey, Importance importance) {
         if (user == null) throw new IllegalArgumentException("user is null");
         if (filterKey == null || filterKey.isBlank()) throw new IllegalArgumentException("filterKey is blank");
         if (importance == null) throw new IllegalArgumentException("importance is null");
 
-        SustainabilityFilter filter = SustainabilityFilter.find("key", filterKey).firstResult();
+        FilterCatalog.Entry filter = filterService.catalog().byKey(filterKey);
         if (filter == null) throw new IllegalArgumentException("Unknown filter key: " + filterKey);
 
         UserSustainabilityPref pref = UserSustainabilityPref
-                .find("user = ?1 and filter = ?2", user, filter)
+                .find("user = ?1 and filter.id = ?2", user, filter.id())
                 .firstResult();
 
         if (pref == null) {
-            pref = new UserSustainabilityPref(UUID.randomUUID(), user, filter, importance);
+            // Referenz statt Laden: der Filter ist durch den Katalog bekannt, die FK prüft die DB
+            SustainabilityFilter ref = SustainabilityFilter.getEntityManager()
+                    .getReference(SustainabilityFilter.class, filter.id());
+            pref = new UserSustainabilityPref(UUID.randomUUID(), user, ref, importance);
             pref.persist();
         } else {
             pref.importance = importance;
             // Panache tracked entity -> Flush/merge nicht nötig
         }
-        return pref;
+        publishChange(user.id);
+        return new PreferenceView(filter.key(), pref.importance);
     }
 
     /**
@@ -74,22 +177,136 @@ public class UserSustainabilityPrefService {
         if (user == null) throw new IllegalArgumentException("user is null");
         if (filterKey == null || filterKey.isBlank()) throw new IllegalArgumentException("filterKey is blank");
 
-        SustainabilityFilter filter = SustainabilityFilter.find("key", filterKey).firstResult();
+        FilterCatalog.Entry filter = filterService.catalog().byKey(filterKey);
         if (filter == null) return false;
 
-        long deleted = UserSustainabilityPref.delete("user = ?1 and filter = ?2", user, filter);
+        long deleted = UserSustainabilityPref.delete("user = ?1 and filter.id = ?2", user, filter.id());
+        if (deleted > 0) {
+            publishChange(user.id);
+        }
         return deleted > 0;
     }
 
+    /**
+     * Ersetzt die komplette Map filterKey -> Importance des Users (fehlende Keys werden gelöscht).
+     * Genau ein DB-Roundtrip; ohne vorheriges Laden von User, Filtern oder Präferenzen.
+     *
+     * @return die neue Map
+     * @throws IllegalArgumentException unbekannter Filter-Key oder fehlende Importance (nichts wird geschrieben)
+     * @throws IllegalStateException    User existiert nicht
+     */
+    @Transactional
+    public Map<String, Importance> replacePreferences(UUID userId, Map<String, Importance> preferences) {
+        if (userId == null) throw new IllegalArgumentException("user is null");
+        if (preferences == null) throw new IllegalArgumentException("preferences is null");
+
+        String[] keys = new String[preferences.size()];
+        String[] importances = new String[preferences.size()];
+        int i = 0;
+        for (Map.Entry<String, Importance> e : preferences.entrySet()) {
+            if (e.getKey() == null || e.getKey().isBlank()) throw new IllegalArgumentException("filterKey is blank");
+            if (e.getValue() == null) throw new IllegalArgumentException("importance is null for " + e.getKey());
+            keys[i] = e.getKey();
+            importances[i] = e.getValue().name();
+            i++;
+        }
+
+        Map<String, Importance> result = new TreeMap<>();
+        List<String> unknown = new ArrayList<>();
+        try {
+            UserSustainabilityPref.getEntityManager().unwrap(Session.class).doWork(c -> {
+                try (PreparedStatement ps = c.prepareStatement(REPLACE_SQL)) {
+                    ps.setArray(1, c.createArrayOf("text", keys));
+                    ps.setArray(2, c.createArrayOf("text", importances));
+                    ps.setObject(3, userId);
+                    ps.setObject(4, userId);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            String importance = rs.getString(2);
+                            if (importance == null) {
+                                unknown.add(rs.getString(1));
+                            } else {
+                                result.put(rs.getString(1), Importance.valueOf(importance));
+                            }
+                        }
+                    }
+                }
+            });
+        } catch (PersistenceException e) {
+            if (isForeignKeyViolation(e)) {
+                throw new IllegalStateException("User not found");
+            }
+            throw e;
+        }
+        if (!unknown.isEmpty()) {
+            // RuntimeException -> Rollback, auch Upsert/Delete werden verworfen
+            throw new IllegalArgumentException("Unknown filter key: " + String.join(", ", unknown));
+        }
+        publishChange(userId);
+        return result;
+    }
+
+    /** Präferenz-Caches dieser und aller anderen Instanzen für diesen User verwerfen (Zustellung beim Commit) */
+    private void publishChange(UUID userId) {
+        vectorCache.evict(userId);
+        preferenceIndex.markDirty(userId);
+        invalidationBus.publish(new CacheInvalidation(CacheInvalidation.Region.PREFERENCES, userId.toString()));
+    }
+
+    private static boolean isForeignKeyViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && FOREIGN_KEY_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Nützlich für das Frontend: Map filterKey -> Importance.
      */
     @Transactional(Transactional.TxType.SUPPORTS)
-    public Map<String, Importance> getPreferenceMap(User user) {
-        return getPreferences(user).stream()
+    public Map<String, Importance> getPreferenceMap(UUID userId) {
+        return getPreferences(userId).stream()
                 .collect(Collectors.toMap(
-                        p -> p.filter.key,
-                        p -> p.importance
+                        PreferenceView::filterKey,
+                        PreferenceView::importance
                 ));
     }
-}
\ No newline at end of file
+
+    /**
+     * Präferenz-Maps vieler User in einer Query (für Batch-Jobs anderer Services).
+     * Keys kommen aus dem {@link FilterCatalog}, stillgelegte Filter werden ausgelassen.
+     *
+     * @return userId -> (filterKey -> Importance); unbekannte User fehlen in der Map
+     * @throws IllegalArgumentException keine oder zu viele IDs
+     */
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Map<UUID, Map<String, Importance>> getPreferenceMaps(Collection<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) throw new IllegalArgumentException("userIds is empty");
+        Set<UUID> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        if (ids.size() > batchMaxUsers) {
+            throw new IllegalArgumentException("Too many user ids (max " + batchMaxUsers + ")");
+        }
+        FilterCatalog catalog = filterService.catalog();
+        Map<UUID, Map<String, Importance>> result = new HashMap<>(ids.size() * 2);
+        UserSustainabilityPref.getEntityManager().unwrap(Session.class).doWork(c -> {
+            try (PreparedStatement ps = c.prepareStatement(BATCH_SQL)) {
+                ps.setArray(1, c.createArrayOf("uuid", ids.toArray()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Importance> prefs = result.computeIfAbsent(
+                                rs.getObject(1, UUID.class), id -> new TreeMap<>());
+                        UUID filterId = rs.getObject(2, UUID.class);
+                        FilterCatalog.Entry filter = filterId != null ? catalog.byId(filterId) : null;
+                        if (filter != null) {
+                            prefs.put(filter.key(), Importance.valueOf(rs.getString(3)));
+                        }
+                    }
+                }
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package com.elysion.application;
+
+import com.elysion.domain.TokenPurpose;
+import com.elysion.domain.UserToken;
+import com.elysion.security.SignedTokenCodec;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ausgabe und Einlösung von Einmal-Tokens (Aktivierung, E-Mail-Änderung).
+ * Die Tokens sind per HMAC signiert ({@link SignedTokenCodec}); in {@code user_token} liegt nur die
+ * Nonce. Pro User und Zweck ist höchstens ein Token gültig; ein neuer ersetzt den alten.
+ * Abgelaufene Nonces räumt der {@link PurgeJob} weg.
+ */
+@ApplicationScoped
+public class UserTokenService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO user_token (id, user_id, purpose, created_at, expires_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    @Inject
+    SignedTokenCodec codec;
+
+    @ConfigProperty(name = "security.user-token.lifespan", defaultValue = "P1D")
+    Duration lifespan;
+
+    /** Ersetzt einen evtl. vorhandenen Token und liefert den neuen (nur für den Mail-Link) */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public String issue(UUID userId, TokenPurpose purpose) {
+        UserToken.delete("userId = ?1 and purpose = ?2", userId, purpose);
+        return issueNew(userId, purpose);
+    }
+
+    /** Wie {@link #issue}, aber ohne vorheriges DELETE - nur für gerade angelegte User */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public String issueNew(UUID userId, TokenPurpose purpose) {
+        UserToken token = new UserToken();
+        token.id = UUID.randomUUID();
+        token.userId = userId;
+        token.purpose = purpose;
+        token.createdAt = OffsetDateTime.now();
+        token.expiresAt = token.createdAt.plus(lifespan);
+        token.persist();
+        return codec.sign(new SignedTokenCodec.Claims(token.id, userId, purpose, token.expiresAt.toInstant()));
+    }
+
+    /** JDBC-Variante für frisch angelegte User (z.B. Import); liefert die Tokens in Eingabereihenfolge */
+    public List<String> issueAll(Connection connection, List<UUID> userIds, TokenPurpose purpose) throws SQLException {
+        List<String> tokens = new ArrayList<>(userIds.size());
+        if (userIds.isEmpty()) {
+            return tokens;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime expires = now.plus(lifespan);
+        Timestamp createdAt = Timestamp.from(now.toInstant());
+        Timestamp expiresAt = Timestamp.from(expires.toInstant());
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+            for (UUID userId : userIds) {
+                UUID nonce = UUID.randomUUID();
+                ps.setObject(1, nonce);
+                ps.setObject(2, userId);
+                ps.setString(3, purpose.name());
+                ps.setTimestamp(4, createdAt);
+                ps.setTimestamp(5, expiresAt);
+                ps.addBatch();
+                tokens.add(codec.sign(new SignedTokenCodec.Claims(nonce, userId, purpose, expires.toInstant())));
+            }
+            ps.executeBatch();
+        }
+        return tokens;
+    }
+
+    /**
+     * Löst einen Token ein. Format, Signatur und Ablauf werden ohne DB geprüft; danach genau ein
+     * DELETE per Primärschlüssel (0 Zeilen = schon benutzt oder durch neueren Token ersetzt).
+     *
+     * @throws IllegalArgumentException kaputt, gefälscht oder schon benutzt
+     * @throws IllegalStateException    abgelaufen
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public SignedTokenCodec.Claims consume(String token) {
+        SignedTokenCodec.Claims claims = codec.verify(token);
+        long deleted = UserToken.delete("id = ?1 and userId = ?2 and purpose = ?3",
+                claims.nonce(), claims.userId(), claims.purpose());
+        if (deleted == 0) {
+            throw new IllegalArgumentException("Invalid token");
+        }
+        return claims;
+    }
+
+    /** Ausstellungszeit des aktuellen Tokens oder null */
+    public OffsetDateTime lastIssuedAt(UUID userId, TokenPurpose purpose) {
+        UserToken token = UserToken.find("userId = ?1 and purpose = ?2", userId, purpose).firstResult();
+        return token != null ? token.createdAt : null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.elysion.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JWT-Signaturschlüssel (kid -> Key) für Rotation ohne Downtime.
+ * <pre>
+ * security.jwt.keys."1".location=META-INF/resources/privateKey.pem
+ * security.jwt.keys."2".location=file:/secrets/jwt-2.pem
+ * security.jwt.keys."2".active-from=2026-11-01T00:00:00Z
+ * security.jwt.keys."1".retire-at=2026-11-02T00:00:00Z
+ * </pre>
+ */
+@ConfigMapping(prefix = "security.jwt")
+public interface SigningKeysConfig {
+
+    Map<String, Key> keys();
+
+    /** kid, gegen den Tokens ohne kid-Header (vor der Rotation ausgestellt) geprüft werden */
+    @WithDefault("1")
+    String legacyKid();
+
+    /** max-age für /.well-known/jwks.json */
+    @WithDefault("PT5M")
+    Duration jwksMaxAge();
+
+    interface Key {
+
+        /** RSA Private Key (PEM), Classpath-Pfad oder file:/... */
+        String location();
+
+        /** Ab wann mit diesem Key signiert wird; vorher wird er nur veröffentlicht */
+        Optional<Instant> activeFrom();
+
+        /** Ab wann der Key weder veröffentlicht noch akzeptiert wird */
+        Optional<Instant> retireAt();
+    }
+}
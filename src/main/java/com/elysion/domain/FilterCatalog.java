@@ -0,0 +1,117 @@
+package com.elysion.domain;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unveränderlicher Schnappschuss aller aktiven (nicht stillgelegten) Nachhaltigkeitsfilter.
+ * <p>
+ * Wird beim Start und nach jeder Katalogänderung komplett neu gebaut und atomar ausgetauscht;
+ * Leser arbeiten ohne Locks immer auf einem konsistenten Stand.
+ */
+public final class FilterCatalog {
+
+    public static final FilterCatalog EMPTY = new FilterCatalog(0, List.of());
+
+    /** Read-Model eines Filters; JSON-Form von /filters */
+    public record Entry(UUID id,
+                        String key,
+                        int position,
+                        String label,
+                        String icon,
+                        String description,
+                        String examples,
+                        Importance importance) {
+
+        public static Entry from(SustainabilityFilter f) {
+            return new Entry(f.id, f.key, f.position, f.label, f.icon, f.description, f.examples, f.importance);
+        }
+    }
+
+    private final long version;
+    private final List<Entry> filters;
+    private final Map<String, Entry> byKey;
+    private final Map<UUID, Entry> byId;
+    /** Keys als char[] für allokationsfreie Lookups direkt aus dem Parser-Puffer */
+    private final char[][] keyChars;
+    private final int[] positions;
+    private final int maxPosition;
+
+    /** @param version Stand von {@code filter_catalog_version}, aus dem der Schnappschuss gebaut wurde */
+    public FilterCatalog(long version, List<Entry> filters) {
+        this.version = version;
+        this.filters = filters.stream().sorted(Comparator.comparingInt(Entry::position)).toList();
+        Map<String, Entry> keys = new HashMap<>();
+        Map<UUID, Entry> ids = new HashMap<>();
+        for (Entry e : this.filters) {
+            keys.put(e.key(), e);
+            ids.put(e.id(), e);
+        }
+        this.byKey = Map.copyOf(keys);
+        this.byId = Map.copyOf(ids);
+        this.keyChars = new char[this.filters.size()][];
+        this.positions = new int[this.filters.size()];
+        int max = -1;
+        for (int i = 0; i < this.filters.size(); i++) {
+            Entry e = this.filters.get(i);
+            keyChars[i] = e.key().toCharArray();
+            positions[i] = e.position();
+            max = Math.max(max, e.position());
+        }
+        this.maxPosition = max;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /** Alle aktiven Filter, nach Position sortiert */
+    public List<Entry> filters() {
+        return filters;
+    }
+
+    /** @return der Filter oder null, wenn unbekannt oder stillgelegt */
+    public Entry byKey(String key) {
+        return key == null ? null : byKey.get(key);
+    }
+
+    /** @return der Filter oder null, wenn unbekannt oder stillgelegt */
+    public Entry byId(UUID id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public int size() {
+        return filters.size();
+    }
+
+    /** Höchste vergebene Position unter den aktiven Filtern, -1 bei leerem Katalog */
+    public int maxPosition() {
+        return maxPosition;
+    }
+
+    /**
+     * Position des Filters mit dem Key {@code chars[offset, offset + length)}, ohne einen String zu erzeugen.
+     * Linear - der Katalog hat nur wenige Einträge.
+     *
+     * @return die Position oder -1, wenn unbekannt oder stillgelegt
+     */
+    public int positionOf(char[] chars, int offset, int length) {
+        outer:
+        for (int i = 0; i < keyChars.length; i++) {
+            char[] key = keyChars[i];
+            if (key.length != length) {
+                continue;
+            }
+            for (int j = 0; j < length; j++) {
+                if (key[j] != chars[offset + j]) {
+                    continue outer;
+                }
+            }
+            return positions[i];
+        }
+        return -1;
+    }
+}
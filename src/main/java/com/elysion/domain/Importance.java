@@ -4,8 +4,19 @@ package com.elysion.domain;
  * Skala 1–4, wie in deinem Frontend definiert.
  */
 public enum Importance {
-    NOT_IMPORTANT,      // entspricht value "1"
-    SOMEWHAT_IMPORTANT, // "2"
-    IMPORTANT,          // "3"
-    VERY_IMPORTANT      // "4"
-}
\ No newline at end of file
+    NOT_IMPORTANT(0),      // entspricht value "1"
+    SOMEWHAT_IMPORTANT(1), // "2"
+    IMPORTANT(2),          // "3"
+    VERY_IMPORTANT(4);     // "4"
+
+    private final int weight;
+
+    Importance(int weight) {
+        this.weight = weight;
+    }
+
+    /** Gewicht im Match-Score eines Produkts; "sehr wichtig" zählt doppelt so viel wie "wichtig" */
+    public int weight() {
+        return weight;
+    }
+}
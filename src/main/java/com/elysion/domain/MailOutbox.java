@@ -0,0 +1,49 @@
+package com.elysion.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Ausgehende Mail, geschrieben in derselben Transaktion wie die fachliche Änderung.
+ * Versendet wird asynchron vom {@code MailOutboxDispatcher}.
+ */
+@Entity
+@Table(name = "mail_outbox")
+public class MailOutbox extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    public UUID id;
+
+    @Column(name = "recipient", nullable = false)
+    public String recipient;
+
+    @Column(name = "subject", nullable = false)
+    public String subject;
+
+    @Column(name = "body", nullable = false)
+    public String body;
+
+    @Column(name = "created_at", nullable = false)
+    public OffsetDateTime createdAt;
+
+    /** Frühester nächster Versuch; während eines Versands die Lease-Grenze */
+    @Column(name = "next_attempt_at", nullable = false)
+    public OffsetDateTime nextAttemptAt;
+
+    @Column(name = "attempts", nullable = false)
+    public int attempts = 0;
+
+    @Column(name = "sent_at")
+    public OffsetDateTime sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    public String lastError;
+
+    public MailOutbox() {
+        // JPA benötigt
+    }
+}
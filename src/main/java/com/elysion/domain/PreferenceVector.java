@@ -0,0 +1,87 @@
+package com.elysion.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Bit-gepackte Präferenzen eines Users, indiziert über {@link SustainabilityFilter#position}.
+ * <p>
+ * Je Filter ein 3-Bit-Slot: Bit 0 = gesetzt, Bit 1-2 = {@link Importance#ordinal()}.
+ * 21 Slots pro {@code long} (63 Bit, das oberste Bit bleibt frei). Unveränderlich.
+ */
+public final class PreferenceVector {
+
+    public static final int SLOT_BITS = 3;
+    public static final int SLOTS_PER_WORD = 21;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+    private static final long PRESENT = 1L;
+    private static final Importance[] IMPORTANCES = Importance.values();
+
+    public static final PreferenceVector EMPTY = new PreferenceVector(new long[0]);
+
+    private final long[] words;
+
+    private PreferenceVector(long[] words) {
+        this.words = words;
+    }
+
+    /** Übernimmt das Array ohne Kopie - nur für frisch gebaute Arrays */
+    public static PreferenceVector wrap(long[] words) {
+        return words.length == 0 ? EMPTY : new PreferenceVector(words);
+    }
+
+    public static int wordsFor(int slots) {
+        return (slots + SLOTS_PER_WORD - 1) / SLOTS_PER_WORD;
+    }
+
+    /** Setzt einen Slot in einem (noch nicht gewrappten) Wort-Array */
+    public static void set(long[] words, int position, Importance importance) {
+        int word = position / SLOTS_PER_WORD;
+        int shift = (position % SLOTS_PER_WORD) * SLOT_BITS;
+        long slot = PRESENT | ((long) importance.ordinal() << 1);
+        words[word] = (words[word] & ~(SLOT_MASK << shift)) | (slot << shift);
+    }
+
+    /** @return die Importance an dieser Position oder null, wenn nicht gesetzt */
+    public Importance get(int position) {
+        int word = position / SLOTS_PER_WORD;
+        if (position < 0 || word >= words.length) {
+            return null;
+        }
+        long slot = (words[word] >>> ((position % SLOTS_PER_WORD) * SLOT_BITS)) & SLOT_MASK;
+        return (slot & PRESENT) == 0 ? null : IMPORTANCES[(int) (slot >>> 1)];
+    }
+
+    /** Anzahl adressierbarer Slots */
+    public int capacity() {
+        return words.length * SLOTS_PER_WORD;
+    }
+
+    public int wordCount() {
+        return words.length;
+    }
+
+    public long word(int i) {
+        return words[i];
+    }
+
+    /** Wörter als Little-Endian-Bytes (8 je Wort) */
+    public byte[] toBytes() {
+        ByteBuffer buf = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long w : words) {
+            buf.putLong(w);
+        }
+        return buf.array();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PreferenceVector other && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
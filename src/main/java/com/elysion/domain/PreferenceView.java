@@ -0,0 +1,11 @@
+package com.elysion.domain;
+
+/**
+ * Read-Model einer Nutzerpräferenz; per Join-Query geladen, ohne Entities im Persistence Context.
+ */
+public record PreferenceView(String filterKey, Importance importance) {
+
+    public static PreferenceView from(UserSustainabilityPref pref) {
+        return new PreferenceView(pref.filter.key, pref.importance);
+    }
+}
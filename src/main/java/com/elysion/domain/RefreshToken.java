@@ -0,0 +1,56 @@
+package com.elysion.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Opaker, rotierender Refresh-Token. Gespeichert wird nur der SHA-256-Hash.
+ */
+@Entity
+@Table(name = "refresh_token")
+public class RefreshToken extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    public UUID id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    public UUID userId;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    public String tokenHash;
+
+    /** Gemeinsame ID aller Rotationen eines Logins */
+    @Column(name = "family_id", nullable = false, updatable = false)
+    public UUID familyId;
+
+    @Column(name = "created_at", nullable = false)
+    public OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    public OffsetDateTime expiresAt;
+
+    /** Gesetzt, sobald der Token gegen einen neuen getauscht wurde */
+    @Column(name = "used_at")
+    public OffsetDateTime usedAt;
+
+    @Column(name = "revoked", nullable = false)
+    public boolean revoked = false;
+
+    public RefreshToken() {
+        // JPA benötigt
+    }
+
+    public RefreshToken(UUID id, UUID userId, String tokenHash, UUID familyId,
+                        OffsetDateTime createdAt, OffsetDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+}
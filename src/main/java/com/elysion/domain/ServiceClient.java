@@ -0,0 +1,43 @@
+package com.elysion.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Zugang eines anderen Services (Client-Credentials). Gespeichert wird nur der SHA-256-Hash des Secrets.
+ */
+@Entity
+@Table(name = "service_client")
+public class ServiceClient extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    public UUID id;
+
+    @Column(name = "name", nullable = false, unique = true, length = 100)
+    public String name;
+
+    @Column(name = "secret_hash", nullable = false, unique = true, length = 64)
+    public String secretHash;
+
+    @Column(name = "created_at", nullable = false)
+    public OffsetDateTime createdAt;
+
+    /** Gesetzt = gesperrt; bereits ausgestellte JWTs laufen noch bis zu ihrem exp */
+    @Column(name = "revoked_at")
+    public OffsetDateTime revokedAt;
+
+    public ServiceClient() {
+        // JPA benötigt
+    }
+
+    public ServiceClient(UUID id, String name, String secretHash, OffsetDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.secretHash = secretHash;
+        this.createdAt = createdAt;
+    }
+}
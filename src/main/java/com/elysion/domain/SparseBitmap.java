@@ -0,0 +1,166 @@
+package com.elysion.domain;
+
+import java.util.Arrays;
+
+/**
+ * Bitmap über nicht-negative int-IDs, in Blöcke zu 2^16 Bit aufgeteilt.
+ * <p>
+ * Leere Blöcke belegen keinen Speicher (null), bei dünn besetzten Bitmaps bleibt der Verbrauch
+ * also proportional zu den belegten ID-Bereichen. Mengenoperationen arbeiten blockweise und
+ * überspringen leere Blöcke. Nicht thread-safe - Synchronisation ist Sache des Besitzers.
+ */
+public final class SparseBitmap {
+
+    private static final int BLOCK_SHIFT = 16;
+    private static final int BLOCK_WORDS = (1 << BLOCK_SHIFT) / Long.SIZE;
+    private static final long[][] NO_BLOCKS = new long[0][];
+
+    private long[][] blocks = NO_BLOCKS;
+
+    public void set(int id) {
+        int b = id >>> BLOCK_SHIFT;
+        if (b >= blocks.length) {
+            blocks = Arrays.copyOf(blocks, Math.max(b + 1, blocks.length * 2));
+        }
+        long[] block = blocks[b];
+        if (block == null) {
+            block = blocks[b] = new long[BLOCK_WORDS];
+        }
+        int bit = id & ((1 << BLOCK_SHIFT) - 1);
+        block[bit >>> 6] |= 1L << bit;
+    }
+
+    public void clear(int id) {
+        int b = id >>> BLOCK_SHIFT;
+        if (b < blocks.length && blocks[b] != null) {
+            int bit = id & ((1 << BLOCK_SHIFT) - 1);
+            blocks[b][bit >>> 6] &= ~(1L << bit);
+        }
+    }
+
+    public boolean get(int id) {
+        int b = id >>> BLOCK_SHIFT;
+        if (b >= blocks.length || blocks[b] == null) {
+            return false;
+        }
+        int bit = id & ((1 << BLOCK_SHIFT) - 1);
+        return (blocks[b][bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public long cardinality() {
+        long n = 0;
+        for (long[] block : blocks) {
+            if (block != null) {
+                for (long w : block) {
+                    n += Long.bitCount(w);
+                }
+            }
+        }
+        return n;
+    }
+
+    /** |this ∧ other| ohne Zwischenergebnis */
+    public long andCardinality(SparseBitmap other) {
+        long n = 0;
+        int len = Math.min(blocks.length, other.blocks.length);
+        for (int b = 0; b < len; b++) {
+            long[] x = blocks[b];
+            long[] y = other.blocks[b];
+            if (x != null && y != null) {
+                for (int i = 0; i < BLOCK_WORDS; i++) {
+                    n += Long.bitCount(x[i] & y[i]);
+                }
+            }
+        }
+        return n;
+    }
+
+    public SparseBitmap copy() {
+        SparseBitmap c = new SparseBitmap();
+        c.blocks = new long[blocks.length][];
+        for (int b = 0; b < blocks.length; b++) {
+            if (blocks[b] != null) {
+                c.blocks[b] = blocks[b].clone();
+            }
+        }
+        return c;
+    }
+
+    /** this ∧= other */
+    public SparseBitmap and(SparseBitmap other) {
+        for (int b = 0; b < blocks.length; b++) {
+            long[] x = blocks[b];
+            if (x == null) {
+                continue;
+            }
+            long[] y = b < other.blocks.length ? other.blocks[b] : null;
+            if (y == null) {
+                blocks[b] = null;
+                continue;
+            }
+            boolean empty = true;
+            for (int i = 0; i < BLOCK_WORDS; i++) {
+                x[i] &= y[i];
+                empty &= x[i] == 0;
+            }
+            if (empty) {
+                blocks[b] = null;
+            }
+        }
+        return this;
+    }
+
+    /** this ∨= other */
+    public SparseBitmap or(SparseBitmap other) {
+        if (other.blocks.length > blocks.length) {
+            blocks = Arrays.copyOf(blocks, other.blocks.length);
+        }
+        for (int b = 0; b < other.blocks.length; b++) {
+            long[] y = other.blocks[b];
+            if (y == null) {
+                continue;
+            }
+            long[] x = blocks[b];
+            if (x == null) {
+                blocks[b] = y.clone();
+                continue;
+            }
+            for (int i = 0; i < BLOCK_WORDS; i++) {
+                x[i] |= y[i];
+            }
+        }
+        return this;
+    }
+
+    /** this ∧= ¬other */
+    public SparseBitmap andNot(SparseBitmap other) {
+        int len = Math.min(blocks.length, other.blocks.length);
+        for (int b = 0; b < len; b++) {
+            long[] x = blocks[b];
+            long[] y = other.blocks[b];
+            if (x == null || y == null) {
+                continue;
+            }
+            boolean empty = true;
+            for (int i = 0; i < BLOCK_WORDS; i++) {
+                x[i] &= ~y[i];
+                empty &= x[i] == 0;
+            }
+            if (empty) {
+                blocks[b] = null;
+            }
+        }
+        return this;
+    }
+
+    /** Belegter Speicher der Blöcke in Bytes (ohne Objekt-Header) */
+    public long sizeInBytes() {
+        long n = (long) blocks.length * Long.BYTES;
+        for (long[] block : blocks) {
+            if (block != null) {
+                n += (long) BLOCK_WORDS * Long.BYTES;
+            }
+        }
+        return n;
+    }
+}
@@ -2,6 +2,8 @@ package com.elysion.domain;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
@@ -16,6 +18,10 @@ public class SustainabilityFilter extends PanacheEntityBase {
     @Column(name = "filter_key", nullable = false, unique = true, length = 50)
     public String key;
 
+    /** Stabiler Slot im {@link PreferenceVector}; wird nie neu vergeben */
+    @Column(name = "position", nullable = false, unique = true)
+    public int position;
+
     /** Lesbarer Name */
     @Column(name = "label", nullable = false, length = 100)
     public String label;
@@ -37,6 +43,10 @@ public class SustainabilityFilter extends PanacheEntityBase {
     @Column(name = "importance", nullable = false, length = 20)
     public Importance importance;
 
+    /** Stillgelegt seit; stillgelegte Filter bleiben (mit ihrer Position) erhalten, sind aber nicht mehr wählbar */
+    @Column(name = "retired_at")
+    public OffsetDateTime retiredAt;
+
     public SustainabilityFilter() {
         // JPA benötigt
     }
@@ -0,0 +1,12 @@
+package com.elysion.domain;
+
+/**
+ * Wofür ein {@link UserToken} ausgestellt wurde.
+ * Reihenfolge nicht ändern: der Ordinal steckt in bereits verschickten, signierten Tokens.
+ */
+public enum TokenPurpose {
+    /** Double-Opt-In nach der Registrierung */
+    ACTIVATION,
+    /** Bestätigung einer neuen E-Mail-Adresse */
+    EMAIL_CHANGE
+}
@@ -4,6 +4,7 @@ import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 
 import java.time.OffsetDateTime;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
@@ -23,6 +24,10 @@ public class User extends PanacheEntityBase {
     @Column(name = "email", nullable = false, unique = true)
     public String email;
 
+    /** {@link #normalizeEmail(String)} von {@link #email}, wird beim Speichern gesetzt. Alle Lookups laufen hierüber. */
+    @Column(name = "email_normalized", nullable = false, unique = true)
+    public String emailNormalized;
+
     @Column(name = "password_hash", nullable = false)
     public String passwordHash;
 
@@ -41,11 +46,16 @@ public class User extends PanacheEntityBase {
     @Column(name = "pending_email", unique = true)
     public String pendingEmail;
 
-    @Column(name = "activation_token", unique = true)
-    public String activationToken;
+    @Column(name = "pending_email_normalized", unique = true)
+    public String pendingEmailNormalized;
+
+    /** Zählt bei jeder Änderung der Profil-Spalten hoch (DB-Trigger); Basis für das ETag von /users/me */
+    @Column(name = "version", nullable = false, insertable = false, updatable = false)
+    public long version;
 
-    @Column(name = "activation_token_created")
-    public OffsetDateTime activationTokenCreated;
+    /** Zählt bei jeder Änderung an den Präferenzen hoch (DB-Trigger); Basis für die ETags unter /users/preferences */
+    @Column(name = "prefs_version", nullable = false, insertable = false, updatable = false)
+    public long prefsVersion;
 
     // Convenience constructor
     public User() {
@@ -60,6 +70,26 @@ public class User extends PanacheEntityBase {
         this.createdAt = createdAt;
     }
 
+    /** Einheitliche Schreibweise für Vergleiche/Lookups: getrimmt und klein geschrieben */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Case-insensitiver Lookup über den Unique-Index auf {@code email_normalized} */
+    public static User findByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return find("emailNormalized", normalizeEmail(email)).firstResult();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeEmails() {
+        emailNormalized = normalizeEmail(email);
+        pendingEmailNormalized = normalizeEmail(pendingEmail);
+    }
+
     @Override
     public String toString() {
         return "ID: {id=" + id + ", firstName=" + firstName + ", lastName=" + lastName + ", email=" + email + ", pendingmail=" + pendingEmail + ", activ=" + active;
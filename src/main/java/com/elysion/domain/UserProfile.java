@@ -0,0 +1,26 @@
+package com.elysion.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Unveränderliches Read-Model eines Users ohne Secrets (kein Hash, Salt oder Token).
+ * Wird gecacht und von /users/me ausgeliefert; {@code version} dient nur als ETag.
+ */
+public record UserProfile(UUID id,
+                          String email,
+                          String firstName,
+                          String lastName,
+                          String role,
+                          boolean active,
+                          String pendingEmail,
+                          OffsetDateTime createdAt,
+                          @JsonIgnore long version) {
+
+    public static UserProfile from(User user) {
+        return new UserProfile(user.id, user.email, user.firstName, user.lastName,
+                user.role, user.active, user.pendingEmail, user.createdAt, user.version);
+    }
+}
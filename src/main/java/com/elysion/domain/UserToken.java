@@ -0,0 +1,38 @@
+package com.elysion.domain;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Nonce eines signierten Einmal-Tokens (Aktivierung, E-Mail-Änderung). Der Token selbst wird nicht
+ * gespeichert: er trägt die ID dieser Zeile, die beim Einlösen per Primärschlüssel gelöscht wird.
+ * Bewusst schmal gehalten, damit Lookups und das Aufräumen abgelaufener Tokens billig bleiben.
+ */
+@Entity
+@Table(name = "user_token")
+public class UserToken extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "id", nullable = false, updatable = false)
+    public UUID id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    public UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "purpose", nullable = false, length = 20)
+    public TokenPurpose purpose;
+
+    @Column(name = "created_at", nullable = false)
+    public OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    public OffsetDateTime expiresAt;
+
+    public UserToken() {
+        // JPA benötigt
+    }
+}
@@ -0,0 +1,61 @@
+package com.elysion.interfaces;
+
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.UUID;
+
+/**
+ * Starke ETags aus Versionszählern und {@code If-None-Match} -> 304.
+ * Die Version wird vor den Daten gelesen: ein Race liefert höchstens neuere Daten unter altem Tag,
+ * was beim nächsten Poll ein normales 200 ergibt - nie veraltete Daten unter neuem Tag.
+ * Nutzerbezogene Tags enthalten die User-ID: Versionszähler verschiedener User kollidieren sonst.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /** @param kind unterscheidet Repräsentationen derselben Version (z.B. Liste vs. Map) */
+    static EntityTag tag(String kind, long version) {
+        return new EntityTag(kind + "-" + version);
+    }
+
+    /** Tag für die Daten eines Users */
+    static EntityTag tag(String kind, UUID userId, long version) {
+        return new EntityTag(kind + "-" + userId + "-" + version);
+    }
+
+    /** Für Repräsentationen, die zusätzlich vom Filter-Katalog abhängen (stillgelegte Filter fallen heraus) */
+    static EntityTag tag(String kind, UUID userId, long version, long catalogVersion) {
+        return new EntityTag(kind + "-" + userId + "-" + version + "." + catalogVersion);
+    }
+
+    /** @return 304-Response, wenn der Client die Version schon hat, sonst null */
+    static Response notModified(Request request, EntityTag tag, boolean shared) {
+        Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+        return builder == null ? null : headers(builder, shared).build();
+    }
+
+    static Response ok(Object entity, EntityTag tag, boolean shared) {
+        return headers(Response.ok(entity).tag(tag), shared).build();
+    }
+
+    /** Nicht geteilte Antworten hängen vom Token ab: Vary auf 200 und 304 gleichermaßen */
+    private static Response.ResponseBuilder headers(Response.ResponseBuilder builder, boolean shared) {
+        builder.cacheControl(revalidate(shared));
+        return shared ? builder : builder.header(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+    }
+
+    /** Darf gespeichert werden, muss aber vor jeder Verwendung revalidiert werden */
+    private static CacheControl revalidate(boolean shared) {
+        CacheControl cc = new CacheControl();
+        cc.setNoCache(true);
+        cc.setPrivate(!shared);
+        cc.setNoTransform(false);
+        return cc;
+    }
+}
@@ -0,0 +1,29 @@
+package com.elysion.interfaces;
+
+import com.elysion.security.HashingBusyException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+
+/**
+ * Überlast im BCrypt-Pool -> 503 Service Unavailable mit Retry-After (Sekunden).
+ */
+@Provider
+public class HashingBusyExceptionMapper implements ExceptionMapper<HashingBusyException> {
+
+    private static final Logger LOG = Logger.getLogger(HashingBusyExceptionMapper.class);
+
+    @Override
+    public Response toResponse(HashingBusyException e) {
+        LOG.warn(e.getMessage());
+        long seconds = Math.max(1, e.getRetryAfter().toSeconds());
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, seconds)
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.elysion.interfaces;
+
+import com.elysion.application.UserSustainabilityPrefService;
+import com.elysion.domain.Importance;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Endpoints für andere Services, nicht für Endkunden. Zugang über einen Service-Client
+ * ({@link ServiceClientResource}: Admin legt ihn an, der Service holt sich per ID + Secret ein JWT mit Rolle "Service").
+ */
+@Path("/internal/preferences")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("Service")
+@Tag(name = "Internal", description = "Service-zu-Service-Endpoints")
+@SecurityRequirement(name = "bearerAuth")
+public class InternalPreferenceResource {
+
+    @Inject
+    UserSustainabilityPrefService prefService;
+
+    // --- DTOs ---
+    @Schema(name = "PreferenceBatchRequest", description = "User-IDs, deren Präferenzen geladen werden")
+    public static class BatchRequest {
+        @NotNull @NotEmpty
+        public List<@NotNull UUID> userIds;
+    }
+
+    @Schema(name = "PreferenceBatchResponse",
+            description = "userId -> (filterKey -> Importance); User ohne Präferenzen mit leerer Map, "
+                    + "unbekannte IDs unter unknown")
+    public record BatchResponse(Map<UUID, Map<String, Importance>> preferences, List<UUID> unknown) {}
+
+    @POST
+    @Path("/batch")
+    @Operation(summary = "Präferenzen vieler User abrufen",
+            description = "Lädt die Präferenz-Maps aller angefragten User mit einer Query (Obergrenze: preferences.batch.max-users).")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "OK"),
+            @APIResponse(responseCode = "400", description = "Keine oder zu viele IDs")
+    })
+    public Response batch(@Valid @NotNull BatchRequest req) {
+        try {
+            Map<UUID, Map<String, Importance>> prefs = prefService.getPreferenceMaps(req.userIds);
+            List<UUID> unknown = new ArrayList<>();
+            for (UUID id : new LinkedHashSet<>(req.userIds)) {
+                if (!prefs.containsKey(id)) {
+                    unknown.add(id);
+                }
+            }
+            return Response.ok(new BatchResponse(prefs, unknown)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+}
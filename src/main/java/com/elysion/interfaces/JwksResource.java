@@ -0,0 +1,102 @@
+package com.elysion.interfaces;
+
+import com.elysion.config.SigningKeysConfig;
+import com.elysion.security.Digests;
+import com.elysion.security.SigningKeyRing;
+import com.elysion.security.SigningKeyRing.SigningKey;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.security.PermitAll;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.*;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Path("/.well-known/jwks.json")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "JWKS", description = "Öffentliche Schlüssel zur lokalen JWT-Verifikation")
+public class JwksResource {
+
+    @Inject
+    SigningKeyRing keyRing;
+
+    @Inject
+    SigningKeysConfig config;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    /** Gerendertes JWKS + ETag; wird nur neu gebaut, wenn sich die veröffentlichten Keys ändern */
+    private volatile Rendered rendered;
+
+    private record Rendered(List<String> kids, String json, EntityTag etag) {}
+
+    @GET
+    @PermitAll
+    @Operation(summary = "JSON Web Key Set",
+            description = "Alle aktuell gültigen öffentlichen Signaturschlüssel (RS256), per kid adressierbar.")
+    @APIResponse(responseCode = "200", description = "JWKS")
+    public Response jwks(@Context Request request) {
+        Rendered current = render();
+        CacheControl cc = new CacheControl();
+        cc.setMaxAge((int) config.jwksMaxAge().toSeconds());
+
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(current.etag());
+        if (notModified != null) {
+            return notModified.cacheControl(cc).build();
+        }
+        return Response.ok(current.json())
+                .tag(current.etag())
+                .cacheControl(cc)
+                .build();
+    }
+
+    private Rendered render() {
+        List<SigningKey> keys = keyRing.published();
+        List<String> kids = keys.stream().map(SigningKey::kid).toList();
+        Rendered r = rendered;
+        if (r != null && r.kids().equals(kids)) {
+            return r;
+        }
+        List<Map<String, String>> jwks = keys.stream().map(JwksResource::toJwk).toList();
+        try {
+            String json = objectMapper.writeValueAsString(Map.of("keys", jwks));
+            r = new Rendered(kids, json, new EntityTag(Digests.sha256Hex(json)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot render JWKS", e);
+        }
+        rendered = r;
+        return r;
+    }
+
+    private static Map<String, String> toJwk(SigningKey key) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "RSA");
+        jwk.put("kid", key.kid());
+        jwk.put("use", "sig");
+        jwk.put("alg", "RS256");
+        jwk.put("n", base64Url(key.publicKey().getModulus()));
+        jwk.put("e", base64Url(key.publicKey().getPublicExponent()));
+        return jwk;
+    }
+
+    /** Unsigned Big-Endian, ohne führendes Vorzeichen-Byte (RFC 7518) */
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,29 @@
+package com.elysion.interfaces;
+
+import com.elysion.security.RateLimitExceededException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+
+/**
+ * Limit überschritten -> 429 Too Many Requests mit Retry-After (Sekunden).
+ */
+@Provider
+public class RateLimitExceededExceptionMapper implements ExceptionMapper<RateLimitExceededException> {
+
+    private static final Logger LOG = Logger.getLogger(RateLimitExceededExceptionMapper.class);
+
+    @Override
+    public Response toResponse(RateLimitExceededException e) {
+        LOG.warn(e.getMessage());
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, seconds)
+                .entity(Map.of("error", "Too many requests"))
+                .build();
+    }
+}
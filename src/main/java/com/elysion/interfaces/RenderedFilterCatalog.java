@@ -0,0 +1,107 @@
+package com.elysion.interfaces;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.elysion.application.SustainabilityFilterService;
+import com.elysion.domain.FilterCatalog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.EntityTag;
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fertig serialisierte (und komprimierte) JSON-Antwort von /filters, einmal je Katalog-Version.
+ * <p>
+ * Neu gerendert wird beim ersten Request nach einem Versionswechsel des {@link FilterCatalog};
+ * bis dahin kostet jeder Request nur das Schreiben eines fertigen Puffers.
+ */
+@ApplicationScoped
+class RenderedFilterCatalog {
+
+    private static final Logger LOG = Logger.getLogger(RenderedFilterCatalog.class);
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    private volatile Rendered current;
+
+    /** Eine Kodierung der Antwort; starkes ETag je Kodierung (die Bytes unterscheiden sich) */
+    record Variant(byte[] body, EntityTag tag, String contentEncoding) {}
+
+    /** @param brotli null, wenn der native Encoder auf dieser Plattform fehlt */
+    record Rendered(long version, Variant identity, Variant gzip, Variant brotli) {}
+
+    Rendered get() {
+        FilterCatalog catalog = filterService.catalog();
+        Rendered r = current;
+        if (r == null || r.version() != catalog.version()) {
+            r = render(catalog);
+        }
+        return r;
+    }
+
+    /** Serialisiert: parallele Requests nach einem Versionswechsel rendern nur einmal */
+    private synchronized Rendered render(FilterCatalog catalog) {
+        Rendered r = current;
+        if (r != null && r.version() == catalog.version()) {
+            return r;
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(catalog.filters());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        long version = catalog.version();
+        r = new Rendered(version,
+                new Variant(json, ConditionalGet.tag("filters", version), null),
+                new Variant(gzip(json), new EntityTag("filters-" + version + "-gzip"), "gzip"),
+                brotliAvailable() ? new Variant(brotli(json), new EntityTag("filters-" + version + "-br"), "br") : null);
+        LOG.debugf("Rendered filter catalog v%d: %d bytes, gzip %d, br %s", version, json.length,
+                r.gzip().body().length, r.brotli() != null ? r.brotli().body().length : "-");
+        current = r;
+        return r;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        // Einmal je Version -> höchste Stufe lohnt sich
+        try (GZIPOutputStream gz = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] brotli(byte[] data) {
+        try {
+            return Encoder.compress(data, new Encoder.Parameters().setQuality(11));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean brotliAvailable() {
+        if (Brotli4jLoader.isAvailable()) {
+            return true;
+        }
+        LOG.debugf("Brotli not available: %s", Brotli4jLoader.getUnavailabilityCause());
+        return false;
+    }
+}
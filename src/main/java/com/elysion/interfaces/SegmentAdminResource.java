@@ -0,0 +1,76 @@
+package com.elysion.interfaces;
+
+import com.elysion.application.PreferenceBitmapIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.Map;
+
+/**
+ * Segment-Auswertungen über den {@link PreferenceBitmapIndex} - ohne Scan der Präferenz-Tabelle.
+ * Zahlen sind bis zu einem Refresh-Intervall alt.
+ */
+@Path("/segments")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("Admin")
+@Tag(name = "Segments", description = "Zählungen und Verteilungen über Präferenzen, Rolle und Aktiv-Status")
+@SecurityRequirement(name = "bearerAuth")
+public class SegmentAdminResource {
+
+    @Inject
+    PreferenceBitmapIndex index;
+
+    @POST
+    @Path("/count")
+    @Operation(summary = "Segment zählen",
+            description = "Boolescher Ausdruck aus and/or/not über {\"filter\":key,\"min\":..,\"max\":..}, "
+                    + "{\"active\":bool} und {\"role\":name}, z.B. "
+                    + "{\"and\":[{\"filter\":\"bio\",\"min\":\"IMPORTANT\"},{\"active\":true}]}")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Anzahl passender User und Gesamtzahl"),
+            @APIResponse(responseCode = "400", description = "Ungültiger Ausdruck oder unbekannter Filter"),
+            @APIResponse(responseCode = "503", description = "Index wird noch aufgebaut")
+    })
+    public Response count(@NotNull JsonNode expression) {
+        try {
+            return Response.ok(index.count(expression)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @GET
+    @Path("/histograms")
+    @Operation(summary = "Importance-Verteilung je Filter",
+            description = "Je aktivem Filter (in Positionsreihenfolge) die Anzahl User je Importance; NONE = nicht gesetzt.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Verteilungen"),
+            @APIResponse(responseCode = "503", description = "Index wird noch aufgebaut")
+    })
+    public Response histograms(@QueryParam("activeOnly") @DefaultValue("false") boolean activeOnly) {
+        try {
+            return Response.ok(index.histograms(activeOnly)).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.elysion.interfaces;
+
+import com.elysion.application.ServiceClientService;
+import jakarta.annotation.security.PermitAll;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Pflege der Service-Clients (Admin) und Token-Ausgabe für Services (Client-Credentials).
+ */
+@Path("/service-clients")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("Admin")
+@Tag(name = "Service Clients", description = "Zugänge für Service-zu-Service-Aufrufe (/internal/*)")
+@SecurityRequirement(name = "bearerAuth")
+public class ServiceClientResource {
+
+    @Inject
+    ServiceClientService clientService;
+
+    public static class CreateClientRequest {
+        @NotBlank @Pattern(regexp = "[a-z0-9-]{1,100}")
+        public String name;
+    }
+
+    public static class TokenRequest {
+        @NotNull
+        public UUID clientId;
+        @NotBlank
+        public String clientSecret;
+    }
+
+    @POST
+    @Operation(summary = "Service-Client anlegen",
+            description = "Liefert ID und Secret; das Secret wird nur hier im Klartext ausgegeben.")
+    @APIResponses({
+            @APIResponse(responseCode = "201", description = "Angelegt"),
+            @APIResponse(responseCode = "409", description = "Name bereits vergeben")
+    })
+    public Response create(@Valid @NotNull CreateClientRequest req) {
+        try {
+            return Response.status(Response.Status.CREATED).entity(clientService.create(req.name)).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @GET
+    @Operation(summary = "Service-Clients auflisten", description = "Ohne Secrets, inkl. gesperrter Clients.")
+    public Response list() {
+        return Response.ok(clientService.list()).build();
+    }
+
+    @DELETE
+    @Path("/{id}")
+    @Operation(summary = "Service-Client sperren",
+            description = "Neue Tokens werden abgelehnt; ausgestellte laufen bis zu ihrem exp (security.service-token.lifespan).")
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "Gesperrt"),
+            @APIResponse(responseCode = "404", description = "Unbekannt oder bereits gesperrt")
+    })
+    public Response revoke(@PathParam("id") UUID id) {
+        try {
+            clientService.revoke(id);
+            return Response.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @POST
+    @Path("/token")
+    @PermitAll
+    @Operation(summary = "Service-Token holen",
+            description = "Tauscht clientId + clientSecret gegen ein kurzlebiges JWT mit der Rolle 'Service'.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "{\"token\":\"<jwt>\",\"expiresIn\":900}"),
+            @APIResponse(responseCode = "401", description = "Ungültige oder gesperrte Credentials")
+    })
+    public Response token(@Valid @NotNull TokenRequest req) {
+        try {
+            return Response.ok(clientService.issueToken(req.clientId, req.clientSecret)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.UNAUTHORIZED).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+}
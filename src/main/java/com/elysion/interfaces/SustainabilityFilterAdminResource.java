@@ -0,0 +1,119 @@
+package com.elysion.interfaces;
+
+import com.elysion.application.SustainabilityFilterService;
+import com.elysion.domain.FilterCatalog;
+import com.elysion.domain.Importance;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
+import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+
+/**
+ * Pflege des Filter-Katalogs. Jede Änderung tauscht den Katalog-Schnappschuss aller Instanzen aus.
+ */
+@Path("/filters")
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("Admin")
+@Tag(name = "Sustainability Filters", description = "API zum Abrufen aller verfügbaren Nachhaltigkeitsfilter")
+@SecurityRequirement(name = "bearerAuth")
+public class SustainabilityFilterAdminResource {
+
+    private static final Logger LOG = Logger.getLogger(SustainabilityFilterAdminResource.class);
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    public static class FilterRequest {
+        @NotBlank @Size(max = 100)
+        public String label;
+        @NotBlank @Size(max = 100)
+        public String icon;
+        @NotNull @Size(max = 500)
+        public String description;
+        @NotNull @Size(max = 1000)
+        public String examples;
+        @NotNull
+        public Importance importance;
+
+        SustainabilityFilterService.FilterData toData() {
+            return new SustainabilityFilterService.FilterData(label, icon, description, examples, importance);
+        }
+    }
+
+    public static class CreateFilterRequest extends FilterRequest {
+        @NotBlank @Pattern(regexp = "[a-z0-9-]{1,50}")
+        public String key;
+    }
+
+    @POST
+    @Operation(summary = "Filter anlegen", description = "Legt einen Filter mit der nächsten freien Position an.")
+    @APIResponses({
+            @APIResponse(responseCode = "201", description = "Angelegt"),
+            @APIResponse(responseCode = "409", description = "Key existiert bereits (auch stillgelegt)")
+    })
+    public Response create(@Valid @NotNull CreateFilterRequest req) {
+        try {
+            FilterCatalog.Entry created = filterService.create(req.key, req.toData());
+            LOG.infof("Filter '%s' created at position %d", created.key(), created.position());
+            return Response.status(Response.Status.CREATED).entity(created).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return Response.status(Response.Status.CONFLICT).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @PUT
+    @Path("/{key}")
+    @Operation(summary = "Filter ändern", description = "Ändert die Stammdaten; Key und Position bleiben.")
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Geändert"),
+            @APIResponse(responseCode = "404", description = "Unbekannter oder stillgelegter Filter")
+    })
+    public Response update(@PathParam("key") String key, @Valid @NotNull FilterRequest req) {
+        try {
+            return Response.ok(filterService.update(key, req.toData())).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+
+    @DELETE
+    @Path("/{key}")
+    @Operation(summary = "Filter stilllegen",
+            description = "Der Filter verschwindet aus /filters und aus allen Präferenzen; die Zeilen bleiben erhalten.")
+    @APIResponses({
+            @APIResponse(responseCode = "204", description = "Stillgelegt"),
+            @APIResponse(responseCode = "404", description = "Unbekannter oder bereits stillgelegter Filter")
+    })
+    public Response retire(@PathParam("key") String key) {
+        try {
+            filterService.retire(key);
+            LOG.infof("Filter '%s' retired", key);
+            return Response.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(Map.of("error", e.getMessage())).build();
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package com.elysion.interfaces;
 
-import com.elysion.application.SustainabilityFilterService;
-import com.elysion.domain.SustainabilityFilter;
+import com.elysion.domain.FilterCatalog;
 import jakarta.annotation.security.PermitAll;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.ExampleObject;
@@ -17,7 +22,7 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import java.util.List;
+import java.time.Duration;
 
 @Path("/filters")
 @Produces(MediaType.APPLICATION_JSON)
@@ -25,7 +30,11 @@ import java.util.List;
 public class SustainabilityFilterResource {
 
     @Inject
-    SustainabilityFilterService filterService;
+    RenderedFilterCatalog renderedCatalog;
+
+    /** Wie lange Browser/CDN ohne Revalidierung ausliefern dürfen (0 = immer revalidieren) */
+    @ConfigProperty(name = "filters.http.max-age", defaultValue = "PT1M")
+    Duration maxAge;
 
     @GET
     @PermitAll
@@ -38,7 +47,7 @@ public class SustainabilityFilterResource {
             description = "Liste aller Filter",
             content = @Content(
                     mediaType = "application/json",
-                    schema = @Schema(implementation = SustainabilityFilter.class),
+                    schema = @Schema(implementation = FilterCatalog.Entry.class),
                     examples = @ExampleObject(
                             name = "example",
                             value = "[{\"id\":1,\"key\":\"bio\",\"label\":\"Bio/Organic\",\"description\":\"Products made from organic materials without harmful chemicals\"}," +
@@ -46,8 +55,83 @@ public class SustainabilityFilterResource {
                     )
             )
     )
-    public Response getAllFilters() {
-        List<SustainabilityFilter> filters = filterService.getAllFilters();
-        return Response.ok(filters).build();
+    @APIResponse(responseCode = "304", description = "Unverändert (If-None-Match)")
+    public Response getAllFilters(@Context Request request,
+                                  @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        // Für alle gleich und fertig gerendert: kein DB-Zugriff, kein Jackson, nur ein Puffer
+        RenderedFilterCatalog.Variant variant = select(renderedCatalog.get(), acceptEncoding);
+        CacheControl cacheControl = cacheControl();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(variant.tag());
+        if (notModified != null) {
+            return notModified.cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        Response.ResponseBuilder ok = Response.ok(variant.body(), MediaType.APPLICATION_JSON_TYPE)
+                .tag(variant.tag())
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (variant.contentEncoding() != null) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, variant.contentEncoding());
+        }
+        return ok.build();
+    }
+
+    /** br vor gzip vor unkomprimiert, jeweils nur wenn der Client es (mit q > 0) akzeptiert */
+    private static RenderedFilterCatalog.Variant select(RenderedFilterCatalog.Rendered rendered,
+                                                        String acceptEncoding) {
+        if (rendered.brotli() != null && accepts(acceptEncoding, "br")) {
+            return rendered.brotli();
+        }
+        if (accepts(acceptEncoding, "gzip")) {
+            return rendered.gzip();
+        }
+        return rendered.identity();
+    }
+
+    /** Minimaler Accept-Encoding-Parser: expliziter Eintrag vor "*", q=0 heißt abgelehnt */
+    private static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String name = params[0].trim();
+            boolean accepted = quality(params) > 0;
+            if (name.equalsIgnoreCase(coding)) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String p = params[i].trim();
+            if (p.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private CacheControl cacheControl() {
+        CacheControl cc = new CacheControl();
+        cc.getCacheExtension().put("public", null);
+        cc.setNoTransform(false);
+        if (maxAge.isZero()) {
+            cc.setNoCache(true);
+        } else {
+            cc.setMaxAge((int) maxAge.toSeconds());
+        }
+        return cc;
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,30 @@
 package com.elysion.interfaces;
 
+import com.elysion.application.UserImportService;
 import com.elysion.application.UserService;
 import com.elysion.domain.User;
-import com.elysion.security.PasswordService;
+import com.elysion.security.CurrentUser;
+import com.elysion.security.PasswordHashingExecutor;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
-import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.StreamingOutput;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.jboss.logging.Logger;
 
+import java.io.InputStream;
 import java.util.Map;
 import java.util.UUID;
 
@@ -22,12 +32,22 @@ import java.util.UUID;
 public class UserAdminResource {
 
     private static final Logger LOG = Logger.getLogger(UserAdminResource.class);
+    private static final String NDJSON = "application/x-ndjson";
 
     @Inject
     UserService userService;
 
     @Inject
-    PasswordService passwordService;
+    PasswordHashingExecutor hashingExecutor;
+
+    @Inject
+    CurrentUser currentUser;
+
+    @Inject
+    UserImportService importService;
+
+    @Inject
+    ObjectMapper objectMapper;
 
 
     public static class ReauthRequest {
@@ -35,6 +55,46 @@ public class UserAdminResource {
         public String adminPassword; // Step-up Reauth
     }
 
+    /**
+     * Massen-Import (NDJSON oder CSV mit Header email,password,firstName,lastName).
+     * Antwortet als NDJSON: eine Zeile je Eingabezeile, am Ende {"summary":{...}}.
+     * Ergebnisse werden chunkweise gestreamt, während der Rest des Bodys noch gelesen wird.
+     */
+    @POST
+    @Path("/import")
+    @RolesAllowed("Admin")
+    @Consumes({NDJSON, "text/csv"})
+    @Produces(NDJSON)
+    public Response importUsers(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                @QueryParam("activate") boolean activate,
+                                InputStream body) {
+        UserImportService.Format format = contentType != null && contentType.startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        LOG.infof("User import started by %s (format=%s, activate=%s)", currentUser.id(), format, activate);
+
+        StreamingOutput stream = out -> {
+            ObjectWriter writer = objectMapper.writer();
+            UserImportService.Summary summary;
+            try {
+                summary = importService.importUsers(body, format, activate, results -> {
+                    for (UserImportService.RowResult r : results) {
+                        out.write(writer.writeValueAsBytes(r));
+                        out.write('\n');
+                    }
+                    out.flush();
+                });
+            } catch (IllegalArgumentException e) {
+                out.write(writer.writeValueAsBytes(Map.of("error", e.getMessage())));
+                out.write('\n');
+                return;
+            }
+            out.write(writer.writeValueAsBytes(Map.of("summary", summary)));
+            out.write('\n');
+        };
+        return Response.ok(stream).build();
+    }
+
     @PUT
     @Path("/{id}/role/seller")
     @RolesAllowed("Admin")
@@ -61,14 +121,12 @@ public class UserAdminResource {
     @Path("/{id}/role/admin")
     @Transactional
     public Response makeAdmin(@PathParam("id") UUID userId,
-                              ReauthRequest body,
-                              @Context SecurityContext ctx) {
+                              ReauthRequest body) {
         // Step-up: Admin muss eigenes Passwort bestätigen
-        String actingEmail = ctx.getUserPrincipal().getName();
-        User acting = userService.findByEmail(actingEmail);
+        User acting = currentUser.get();
         if (acting == null) return Response.status(Response.Status.UNAUTHORIZED).build();
 
-        if (!passwordService.verifyPassword(body.adminPassword, acting.salt, acting.passwordHash)) {
+        if (!hashingExecutor.verifyPassword(body.adminPassword, acting.salt, acting.passwordHash)) {
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(Map.of("error","Reauthentication failed")).build();
         }
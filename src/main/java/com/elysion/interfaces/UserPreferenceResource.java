@@ -1,19 +1,24 @@
 package com.elysion.interfaces;
 
+import com.elysion.application.PreferenceScoringService;
+import com.elysion.application.PreferenceVectorCache;
+import com.elysion.application.SustainabilityFilterService;
 import com.elysion.application.UserSustainabilityPrefService;
-import com.elysion.application.UserService;
 import com.elysion.domain.Importance;
+import com.elysion.domain.PreferenceVector;
+import com.elysion.domain.PreferenceView;
 import com.elysion.domain.User;
-import com.elysion.domain.UserSustainabilityPref;
+import com.elysion.security.CurrentUser;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.core.SecurityContext;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -25,8 +30,11 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.io.InputStream;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 @Path("/users/preferences")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
@@ -36,44 +44,65 @@ import java.util.Map;
 public class UserPreferenceResource {
 
     @Inject
-    UserService userService;
+    CurrentUser currentUser;
 
     @Inject
     UserSustainabilityPrefService prefService;
 
+    @Inject
+    PreferenceVectorCache vectorCache;
+
+    @Inject
+    SustainabilityFilterService filterService;
+
+    @Inject
+    PreferenceScoringService scoringService;
+
     // --- DTOs ---
+    @Schema(name = "PreferenceVector",
+            description = "Bit-gepackte Präferenzen: je Filter-Position ein Slot (Bit 0 = gesetzt, Bit 1-2 = Importance-Ordinal), "
+                    + "slotsPerWord Slots pro 64-Bit-Wort, Wörter little-endian, Base64")
+    public record PreferenceVectorResponse(int slotBits, int slotsPerWord, String words) {}
+
     @Schema(name = "SetPreferenceRequest", description = "Wert für eine Präferenz setzen")
     public static class SetPreferenceRequest {
         @NotNull
         public Importance importance;
     }
 
-    @Schema(name = "PreferenceDTO", description = "Repräsentation einer Nutzerpräferenz")
-    public static class PreferenceDTO {
-        public String filterKey;
-        public Importance importance;
-
-        public static PreferenceDTO from(UserSustainabilityPref p) {
-            PreferenceDTO dto = new PreferenceDTO();
-            dto.filterKey = p.filter.key;
-            dto.importance = p.importance;
-            return dto;
-        }
-    }
-
     // Hilfsfunktion: aktuellen User laden
-    private User currentUserOr404(SecurityContext ctx) {
-        String email = ctx.getUserPrincipal() != null ? ctx.getUserPrincipal().getName() : null;
-        if (email == null) {
+    private User currentUserOr404() {
+        if (currentUser.id() == null) {
             throw new WebApplicationException("No principal", Response.Status.UNAUTHORIZED);
         }
-        User u = userService.findByEmail(email);
+        User u = currentUser.get();
         if (u == null) {
             throw new WebApplicationException("User not found", Response.Status.NOT_FOUND);
         }
         return u;
     }
 
+    // Für reine Lesepfade: Existenz über den UserCache prüfen, ohne die Entity zu laden
+    private UUID currentUserIdOr404() {
+        UUID id = currentUser.id();
+        if (id == null) {
+            throw new WebApplicationException("No principal", Response.Status.UNAUTHORIZED);
+        }
+        if (currentUser.profile() == null) {
+            throw new WebApplicationException("User not found", Response.Status.NOT_FOUND);
+        }
+        return id;
+    }
+
+    // Für bedingte GETs: nur der Versionszähler wird gelesen (null -> User existiert nicht)
+    private long preferencesVersionOr404(UUID userId) {
+        Long version = prefService.getPreferencesVersion(userId);
+        if (version == null) {
+            throw new WebApplicationException("User not found", Response.Status.NOT_FOUND);
+        }
+        return version;
+    }
+
     // GET /users/preferences  -> alle Präferenzen des Users (als Liste)
     @GET
     @Operation(summary = "Alle Präferenzen abrufen",
@@ -83,18 +112,24 @@ public class UserPreferenceResource {
             description = "OK",
             content = @Content(
                     mediaType = "application/json",
-                    schema = @Schema(implementation = PreferenceDTO.class),
+                    schema = @Schema(implementation = PreferenceView.class),
                     examples = @ExampleObject(
                             value = "[{\"filterKey\":\"bio\",\"importance\":\"IMPORTANT\"}," +
                                     "{\"filterKey\":\"ethical-work\",\"importance\":\"NICE_TO_HAVE\"}]"
                     )
             )
     )
-    public Response getAll(@Context SecurityContext ctx) {
-        User user = currentUserOr404(ctx);
-        List<UserSustainabilityPref> prefs = prefService.getPreferences(user);
-        List<PreferenceDTO> dtos = prefs.stream().map(PreferenceDTO::from).toList();
-        return Response.ok(dtos).build();
+    @APIResponse(responseCode = "304", description = "Unverändert (If-None-Match)")
+    public Response getAll(@Context Request request) {
+        UUID userId = currentUserIdOr404();
+        EntityTag tag = ConditionalGet.tag("prefs", userId, preferencesVersionOr404(userId),
+                filterService.getCatalogVersion());
+        Response notModified = ConditionalGet.notModified(request, tag, false);
+        if (notModified != null) {
+            return notModified;
+        }
+        List<PreferenceView> prefs = prefService.getPreferences(userId);
+        return ConditionalGet.ok(prefs, tag, false);
     }
 
     // GET /users/preferences/map -> Map filterKey -> Importance (praktisch fürs FE)
@@ -111,10 +146,147 @@ public class UserPreferenceResource {
                     examples = @ExampleObject(value = "{\"bio\":\"IMPORTANT\",\"ethical-work\":\"NICE_TO_HAVE\"}")
             )
     )
-    public Response getMap(@Context SecurityContext ctx) {
-        User user = currentUserOr404(ctx);
-        Map<String, Importance> map = prefService.getPreferenceMap(user);
-        return Response.ok(map).build();
+    @APIResponse(responseCode = "304", description = "Unverändert (If-None-Match)")
+    public Response getMap(@Context Request request) {
+        UUID userId = currentUserIdOr404();
+        EntityTag tag = ConditionalGet.tag("prefs-map", userId, preferencesVersionOr404(userId),
+                filterService.getCatalogVersion());
+        Response notModified = ConditionalGet.notModified(request, tag, false);
+        if (notModified != null) {
+            return notModified;
+        }
+        Map<String, Importance> map = prefService.getPreferenceMap(userId);
+        return ConditionalGet.ok(map, tag, false);
+    }
+
+    // GET /users/preferences/vector -> kompakter Vektor, indiziert über die Filter-Position
+    @GET
+    @Path("/vector")
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_OCTET_STREAM})
+    @Operation(summary = "Präferenzen als Bit-Vektor abrufen",
+            description = "Liefert alle Präferenzen als gepackten Vektor (3 Bit je Filter-Position). "
+                    + "Mit Accept: application/octet-stream die rohen Wörter (8 Byte je Wort, little-endian), "
+                    + "sonst JSON mit Base64.")
+    @APIResponse(
+            responseCode = "200",
+            description = "OK",
+            content = {
+                    @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PreferenceVectorResponse.class),
+                            examples = @ExampleObject(value = "{\"slotBits\":3,\"slotsPerWord\":21,\"words\":\"DQAAAAAAAAA=\"}")),
+                    @Content(mediaType = "application/octet-stream")
+            }
+    )
+    public Response getVector(@HeaderParam("Accept") String accept) {
+        PreferenceVector vector = vectorCache.get(currentUserIdOr404());
+        byte[] bytes = vector.toBytes();
+        if (accept != null && accept.contains(MediaType.APPLICATION_OCTET_STREAM)) {
+            return Response.ok(bytes, MediaType.APPLICATION_OCTET_STREAM_TYPE).build();
+        }
+        return Response.ok(new PreferenceVectorResponse(PreferenceVector.SLOT_BITS, PreferenceVector.SLOTS_PER_WORD,
+                        Base64.getEncoder().encodeToString(bytes)))
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .build();
+    }
+
+    // POST /users/preferences/score  Body: { "products": [["bio","vegan"], [], ["fair-trade"]] }
+    @POST
+    @Path("/score")
+    @Operation(summary = "Produkte gegen die eigenen Präferenzen bewerten",
+            description = "Nimmt je Produkt die Liste der erfüllten Filter-Keys und liefert je Produkt (in "
+                    + "Eingabereihenfolge) die Summe der Gewichte aller erfüllten, vom Nutzer gesetzten Filter. "
+                    + "Gewichte: NOT_IMPORTANT 0, SOMEWHAT_IMPORTANT 1, IMPORTANT 2, VERY_IMPORTANT 4. "
+                    + "Unbekannte Keys werden ignoriert.")
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = PreferenceScoringService.Scores.class),
+                            examples = @ExampleObject(value = "{\"totalWeight\":7,\"scores\":[6,0,1]}")
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Ungültiges Format oder zu viele Produkte",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"error\":\"Too many products (max 5000)\"}")
+                    )
+            )
+    })
+    public Response score(
+            @org.eclipse.microprofile.openapi.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(examples = @ExampleObject(
+                            value = "{\"products\":[[\"bio\",\"vegan\"],[],[\"fair-trade\"]]}"))
+            )
+            InputStream body
+    ) {
+        UUID userId = currentUserIdOr404();
+        try {
+            return Response.ok(scoringService.score(userId, body)).build();
+        } catch (IllegalArgumentException iae) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", iae.getMessage()))
+                    .build();
+        }
+    }
+
+    // PUT /users/preferences  Body: { "bio": "IMPORTANT", "ethical-work": "NOT_IMPORTANT" }
+    @PUT
+    @Operation(summary = "Alle Präferenzen ersetzen",
+            description = "Übernimmt die komplette Map Filter-Key -> Importance in einem Schritt. " +
+                    "Nicht enthaltene Filter werden gelöscht. Liefert die neue Map.")
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "OK",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"bio\":\"IMPORTANT\",\"ethical-work\":\"NOT_IMPORTANT\"}")
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Unbekannter Filter-Key oder fehlende Importance (nichts wird geändert)",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"error\":\"Unknown filter key: foo\"}")
+                    )
+            ),
+            @APIResponse(responseCode = "404", description = "User nicht gefunden")
+    })
+    public Response replaceAll(
+            @NotNull @org.eclipse.microprofile.openapi.annotations.parameters.RequestBody(
+                    required = true,
+                    content = @Content(
+                            schema = @Schema(implementation = Map.class),
+                            examples = @ExampleObject(value = "{\"bio\":\"IMPORTANT\",\"ethical-work\":\"NOT_IMPORTANT\"}")
+                    )
+            )
+            Map<String, Importance> preferences
+    ) {
+        // Nur die ID aus dem Token - kein Laden des Users, der Upsert ist der einzige DB-Zugriff
+        UUID userId = currentUser.id();
+        if (userId == null) {
+            throw new WebApplicationException("No principal", Response.Status.UNAUTHORIZED);
+        }
+        try {
+            return Response.ok(prefService.replacePreferences(userId, preferences)).build();
+        } catch (IllegalArgumentException iae) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", iae.getMessage()))
+                    .build();
+        } catch (IllegalStateException ise) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", ise.getMessage()))
+                    .build();
+        }
     }
 
     // GET /users/preferences/{filterKey} -> einzelne Präferenz
@@ -128,7 +300,7 @@ public class UserPreferenceResource {
                     description = "OK",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = PreferenceDTO.class),
+                            schema = @Schema(implementation = PreferenceView.class),
                             examples = @ExampleObject(value = "{\"filterKey\":\"bio\",\"importance\":\"IMPORTANT\"}")
                     )
             ),
@@ -144,12 +316,10 @@ public class UserPreferenceResource {
     })
     public Response getOne(
             @Parameter(description = "Filter-Schlüssel", required = true, examples = @ExampleObject(value = "bio"))
-            @PathParam("filterKey") String filterKey,
-            @Context SecurityContext ctx
+            @PathParam("filterKey") String filterKey
     ) {
-        User user = currentUserOr404(ctx);
-        return prefService.getPreference(user, filterKey)
-                .map(p -> Response.ok(PreferenceDTO.from(p)).build())
+        return prefService.getPreference(currentUserIdOr404(), filterKey)
+                .map(p -> Response.ok(p).build())
                 .orElse(Response.status(Response.Status.NOT_FOUND)
                         .entity(Map.of("error", "No preference for filter: " + filterKey))
                         .build());
@@ -166,7 +336,7 @@ public class UserPreferenceResource {
                     description = "OK",
                     content = @Content(
                             mediaType = "application/json",
-                            schema = @Schema(implementation = PreferenceDTO.class),
+                            schema = @Schema(implementation = PreferenceView.class),
                             examples = @ExampleObject(value = "{\"filterKey\":\"bio\",\"importance\":\"IMPORTANT\"}")
                     )
             ),
@@ -190,13 +360,12 @@ public class UserPreferenceResource {
                             examples = @ExampleObject(value = "{\"importance\":\"IMPORTANT\"}")
                     )
             )
-            SetPreferenceRequest req,
-            @Context SecurityContext ctx
+            SetPreferenceRequest req
     ) {
-        User user = currentUserOr404(ctx);
+        User user = currentUserOr404();
         try {
-            UserSustainabilityPref saved = prefService.setPreference(user, filterKey, req.importance);
-            return Response.ok(PreferenceDTO.from(saved)).build();
+            PreferenceView saved = prefService.setPreference(user, filterKey, req.importance);
+            return Response.ok(saved).build();
         } catch (IllegalArgumentException iae) {
             // z.B. unbekannter filterKey
             return Response.status(Response.Status.BAD_REQUEST)
@@ -210,10 +379,9 @@ public class UserPreferenceResource {
     @Path("/{filterKey}")
     public Response deletePreference(
             @Parameter(description = "Filter-Schlüssel", required = true, examples = @ExampleObject(value = "bio"))
-            @PathParam("filterKey") String filterKey,
-            @Context SecurityContext ctx
+            @PathParam("filterKey") String filterKey
     ) {
-        User user = currentUserOr404(ctx);
+        User user = currentUserOr404();
         boolean deleted = prefService.removePreference(user, filterKey);
         if (deleted) {
             return Response.noContent().build(); // 204
@@ -1,7 +1,13 @@
 package com.elysion.interfaces;
 
+import com.elysion.application.RefreshTokenService;
+import com.elysion.application.UserCache;
 import com.elysion.application.UserService;
 import com.elysion.domain.User;
+import com.elysion.domain.UserProfile;
+import com.elysion.security.CurrentUser;
+import com.elysion.security.RequestThrottle;
+import io.vertx.core.http.HttpServerRequest;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
@@ -52,6 +58,18 @@ public class UserResource {
     @Inject
     UserService userService;
 
+    @Inject
+    RefreshTokenService refreshTokenService;
+
+    @Inject
+    RequestThrottle throttle;
+
+    @Inject
+    CurrentUser currentUser;
+
+    @Inject
+    UserCache userCache;
+
     // ======== DTOs ========
     @Schema(name = "RegisterRequest", description = "Payload zum Registrieren eines Users")
     public static class RegisterRequest {
@@ -89,6 +107,14 @@ public class UserResource {
         @Override public String toString() { return email + " " + password; }
     }
 
+    @Schema(name = "RefreshTokenRequest", description = "Refresh-Token gegen neues JWT tauschen")
+    public static class RefreshTokenRequest {
+
+        @Schema(required = true)
+        @NotBlank
+        public String refreshToken;
+    }
+
     @Schema(name = "ChangeProfileRequest", description = "Profiländerung")
     public static class ChangeProfileRequest {
 
@@ -229,15 +255,18 @@ public class UserResource {
                                     )
                             }
                     )
-            )
+            ),
+            @APIResponse(responseCode = "429", description = "Zu viele Login-Versuche (Retry-After beachten)")
     })
-    public Response login(@Valid LoginRequest request) {
+    public Response login(@Valid LoginRequest request, @Context HttpServerRequest httpRequest) {
         LOG.info("Login request: " + request.toString());
+        throttle.checkLogin(clientIp(httpRequest), request.email);
         try {
             User user = userService.authenticate(request.email, request.password);
             String token = userService.generateJwt(user);
+            String refreshToken = refreshTokenService.issue(user);
             LOG.info("Login successful");
-            return Response.ok(Map.of("token", token))
+            return Response.ok(Map.of("token", token, "refreshToken", refreshToken))
                     .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
                     .build();
         } catch (IllegalArgumentException e) {
@@ -248,6 +277,47 @@ public class UserResource {
         }
     }
 
+    @POST
+    @Path("/token/refresh")
+    @PermitAll
+    @Operation(
+            summary = "JWT erneuern",
+            description = """
+            Tauscht einen Refresh-Token gegen ein neues JWT und einen neuen Refresh-Token (Rotation).
+            Jeder Refresh-Token ist nur einmal gültig; wird ein bereits getauschter Token erneut
+            verwendet, werden alle Tokens dieses Logins gesperrt.
+            """
+    )
+    @RequestBody(
+            content = @Content(
+                    schema = @Schema(implementation = RefreshTokenRequest.class),
+                    examples = @ExampleObject(value = "{\"refreshToken\":\"<refresh-token>\"}")
+            ),
+            required = true
+    )
+    @APIResponses({
+            @APIResponse(responseCode = "200", description = "Neues Token-Paar",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = "{\"token\":\"<jwt>\",\"refreshToken\":\"<refresh-token>\"}"))),
+            @APIResponse(responseCode = "401", description = "Refresh-Token ungültig, abgelaufen oder wiederverwendet",
+                    content = @Content(mediaType = "application/json",
+                            examples = @ExampleObject(value = "{\"error\":\"Invalid refresh token\"}")))
+    })
+    public Response refreshToken(@Valid RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.refreshToken);
+            String token = userService.generateJwt(rotation.user());
+            return Response.ok(Map.of("token", token, "refreshToken", rotation.refreshToken()))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .build();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            LOG.warn("Token refresh failed: " + e.getMessage());
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+        }
+    }
+
     @GET
     @Path("/confirm-email")
     @PermitAll
@@ -292,10 +362,12 @@ public class UserResource {
     @APIResponses({
             @APIResponse(responseCode = "200", description = "Neuer Token gesendet"),
             @APIResponse(responseCode = "404", description = "User nicht gefunden"),
-            @APIResponse(responseCode = "409", description = "Bereits aktiv")
+            @APIResponse(responseCode = "409", description = "Bereits aktiv"),
+            @APIResponse(responseCode = "429", description = "Zu viele Anfragen (Retry-After beachten)")
     })
-    public Response resendActivation(@QueryParam("email") String email) {
+    public Response resendActivation(@QueryParam("email") String email, @Context HttpServerRequest httpRequest) {
         LOG.info("Resend activation request: " + email);
+        throttle.checkResendActivation(clientIp(httpRequest), email);
         try {
             userService.resendActivationToken(email);
             return Response.ok(Map.of("message", "Neuer Aktivierungslink gesendet")).build();
@@ -332,9 +404,8 @@ public class UserResource {
                     content = @Content(mediaType = "application/json",
                             examples = @ExampleObject(value = "{\"error\":\"E-Mail already in use\"}")))
     })
-    public Response changeEmail(@Valid ChangeEmailRequest request, @Context SecurityContext ctx) {
-        String email = ctx.getUserPrincipal().getName();
-        User user = userService.findByEmail(email);
+    public Response changeEmail(@Valid ChangeEmailRequest request) {
+        User user = currentUser.get();
         if (user == null) {
             return Response.status(NOT_FOUND).build();
         }
@@ -372,9 +443,8 @@ public class UserResource {
                             examples = @ExampleObject(value = "{\"error\":\"Invalid current password\"}"))),
             @APIResponse(responseCode = "404", description = "User nicht gefunden")
     })
-    public Response changePassword(@Valid ChangePasswordRequest request, @Context SecurityContext ctx) {
-        String email = ctx.getUserPrincipal().getName();
-        User user = userService.findByEmail(email);
+    public Response changePassword(@Valid ChangePasswordRequest request) {
+        User user = currentUser.get();
         if (user == null) {
             return Response.status(NOT_FOUND).build();
         }
@@ -389,6 +459,7 @@ public class UserResource {
     @PUT
     @Path("/profile")
     @RolesAllowed("User")
+    @Transactional
     @Operation(
             summary = "Profil ändern",
             description = "Ändert Vor- und Nachnamen des eingeloggten Users."
@@ -406,15 +477,15 @@ public class UserResource {
                             examples = @ExampleObject(value = "{\"message\":\"Profile updated\"}"))),
             @APIResponse(responseCode = "404", description = "User nicht gefunden")
     })
-    public Response changeProfile(@Valid ChangeProfileRequest req,
-                                  @Context SecurityContext ctx) {
-        User user = userService.findByEmail(ctx.getUserPrincipal().getName());
+    public Response changeProfile(@Valid ChangeProfileRequest req) {
+        User user = currentUser.get();
         if (user == null) {
             return Response.status(NOT_FOUND).build();
         }
         user.firstName = req.firstName;
         user.lastName = req.lastName;
         user.persist();
+        userCache.evict(user.id);
         return Response.ok(Map.of("message","Profile updated")).build();
     }
 
@@ -423,21 +494,32 @@ public class UserResource {
     @RolesAllowed("User")
     @Operation(
             summary = "Eigene User-Details",
-            description = "Liefert das User-Objekt des eingeloggten Users."
+            description = "Liefert das Profil des eingeloggten Users (ohne Passwort-Hash, Salt oder Tokens)."
     )
     @SecurityRequirement(name = "bearerAuth")
     @APIResponses({
             @APIResponse(responseCode = "200", description = "OK",
-                    content = @Content(schema = @Schema(implementation = User.class))),
+                    content = @Content(schema = @Schema(implementation = UserProfile.class))),
+            @APIResponse(responseCode = "304", description = "Unverändert (If-None-Match)"),
             @APIResponse(responseCode = "404", description = "User nicht gefunden")
     })
-    public Response me(@Context SecurityContext ctx) {
-        String email = ctx.getUserPrincipal().getName();
-        User user = userService.findByEmail(email);  // gibt null zurück, wenn nicht gefunden
-        if (user == null) {
-            // Kein User mit dieser E‑Mail – 404 Not Found
+    public Response me(@Context Request request) {
+        UserProfile profile = currentUser.profile();  // aus dem Cache, null wenn nicht gefunden
+        if (profile == null) {
+            // Kein User mit dieser ID – 404 Not Found
             return Response.status(NOT_FOUND).build();
         }
-        return Response.ok(user).build();
+        // Version steckt im gecachten Profil -> 304 ganz ohne DB-Zugriff
+        EntityTag tag = ConditionalGet.tag("user", profile.id(), profile.version());
+        Response notModified = ConditionalGet.notModified(request, tag, false);
+        if (notModified != null) {
+            return notModified;
+        }
+        return ConditionalGet.ok(profile, tag, false);
+    }
+
+    /** Client-IP für das Rate-Limiting (hinter Proxy: quarkus.http.proxy.proxy-address-forwarding) */
+    private static String clientIp(HttpServerRequest request) {
+        return request != null && request.remoteAddress() != null ? request.remoteAddress().host() : null;
     }
-}
\ No newline at end of file
+}
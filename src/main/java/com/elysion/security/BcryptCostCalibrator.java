@@ -0,0 +1,85 @@
+package com.elysion.security;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * Setzt beim Start den BCrypt-Cost des {@link PasswordService}.
+ * Entweder fix per {@code security.password.bcrypt.cost} oder - bei aktivierter Kalibrierung -
+ * der Cost, dessen gemessene Hash-Dauer auf diesem Host am nächsten an der Ziel-Latenz liegt.
+ */
+@ApplicationScoped
+public class BcryptCostCalibrator {
+
+    private static final Logger LOG = Logger.getLogger(BcryptCostCalibrator.class);
+    private static final int SAMPLES = 3;
+
+    @Inject
+    PasswordService passwordService;
+
+    @ConfigProperty(name = "security.password.bcrypt.cost", defaultValue = "12")
+    int configuredCost;
+
+    @ConfigProperty(name = "security.password.bcrypt.calibrate", defaultValue = "false")
+    boolean calibrate;
+
+    @ConfigProperty(name = "security.password.bcrypt.target-latency", defaultValue = "PT0.08S")
+    Duration targetLatency;
+
+    @ConfigProperty(name = "security.password.bcrypt.min-cost", defaultValue = "10")
+    int minCost;
+
+    @ConfigProperty(name = "security.password.bcrypt.max-cost", defaultValue = "15")
+    int maxCost;
+
+    void onStart(@Observes StartupEvent ev) {
+        int cost = calibrate ? calibrate() : configuredCost;
+        passwordService.setRounds(cost);
+        LOG.infof("BCrypt cost set to %d (calibrated=%s)", cost, calibrate);
+    }
+
+    /**
+     * Misst den Cost ab {@code minCost} aufwärts, bis die Ziel-Latenz erreicht ist,
+     * und wählt dann den Cost mit dem geringsten Abstand zum Ziel.
+     */
+    int calibrate() {
+        long targetNanos = targetLatency.toNanos();
+        String salt = passwordService.generateSalt();
+
+        // Warmup (JIT), damit die erste Messung nicht verfälscht wird
+        passwordService.hashPassword("calibration-warmup", salt, minCost);
+
+        int bestCost = minCost;
+        long bestDistance = Long.MAX_VALUE;
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            long nanos = measure(salt, cost);
+            long distance = Math.abs(nanos - targetNanos);
+            LOG.debugf("BCrypt cost %d: %d ms", cost, nanos / 1_000_000);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestCost = cost;
+            }
+            if (nanos >= targetNanos) {
+                // jeder weitere Cost verdoppelt die Dauer - weiter messen lohnt nicht
+                break;
+            }
+        }
+        return bestCost;
+    }
+
+    private long measure(String salt, int cost) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            passwordService.hashPassword("calibration-probe", salt, cost);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
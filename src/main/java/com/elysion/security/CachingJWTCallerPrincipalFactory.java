@@ -0,0 +1,168 @@
+package com.elysion.security;
+
+import com.elysion.config.SigningKeysConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.elysion.config.SigningKeysConfig;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.elysion.config.SigningKeysConfig;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.smallrye.jwt.auth.principal.DefaultJWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.JWTAuthContextInfo;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipal;
+import io.smallrye.jwt.auth.principal.JWTCallerPrincipalFactory;
+import io.smallrye.jwt.auth.principal.ParseException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.lang.JoseException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ersetzt die Standard-Factory von SmallRye JWT: verifiziert per kid gegen den {@link SigningKeyRing}
+ * und merkt sich bereits verifizierte Tokens.
+ * <p>
+ * Key ist der SHA-256 des kompletten Tokens (inkl. Signatur) - ein Treffer bedeutet also,
+ * dass exakt dieselben Bytes schon einmal geprüft wurden. Ein Eintrag lebt höchstens bis
+ * zum {@code exp} des Tokens und maximal {@code security.jwt-cache.max-ttl}.
+ * <p>
+ * Tokens werden nur gegen nicht ausgemusterte Keys des Rings akzeptiert - auch aus dem Cache.
+ * Tokens ohne kid (vor Einführung der Rotation ausgestellt) gelten als mit {@code security.jwt.legacy-kid}
+ * signiert und werden mit diesem Key ungültig, sobald er ausgemustert ist.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(1)
+public class CachingJWTCallerPrincipalFactory extends JWTCallerPrincipalFactory {
+
+    private final DefaultJWTCallerPrincipalFactory delegate = new DefaultJWTCallerPrincipalFactory();
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    SigningKeyRing keyRing;
+
+    @Inject
+    SigningKeysConfig keysConfig;
+
+    @ConfigProperty(name = "security.jwt-cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "security.jwt-cache.max-size", defaultValue = "10000")
+    long maxSize;
+
+    @ConfigProperty(name = "security.jwt-cache.max-ttl", defaultValue = "PT10M")
+    Duration maxTtl;
+
+    private Cache<String, Verified> cache;
+    private final Map<String, JWTAuthContextInfo> contextsByKid = new ConcurrentHashMap<>();
+
+    /** Verifiziertes Token samt kid, mit dem es geprüft wurde */
+    private record Verified(String kid, JWTCallerPrincipal principal) {}
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Verified>() {
+                    @Override
+                    public long expireAfterCreate(String key, Verified verified, long currentTime) {
+                        return remainingNanos(verified.principal());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Verified verified, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(verified.principal());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Verified verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt-principals");
+    }
+
+    @Override
+    public JWTCallerPrincipal parse(String token, JWTAuthContextInfo authContextInfo) throws ParseException {
+        if (!enabled) {
+            return verify(token, authContextInfo).principal();
+        }
+        String key = Digests.sha256Hex(token);
+        Verified cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (keyRing.find(cached.kid()).isEmpty()) {
+                // Key wurde seit der Prüfung ausgemustert
+                forgetKey(cached.kid());
+                throw new ParseException("JWT signing key '" + cached.kid() + "' is retired");
+            }
+            return cached.principal();
+        }
+        // Fehler (Signatur, exp, iss, kid ...) werfen hier und landen nie im Cache
+        Verified verified = verify(token, authContextInfo);
+        if (remainingNanos(verified.principal()) > 0) {
+            cache.put(key, verified);
+        }
+        return verified.principal();
+    }
+
+    /**
+     * Verifiziert gegen den öffentlichen Key zum kid aus dem Header (Key-Rotation), ohne kid gegen den
+     * Legacy-Key. Unbekannter oder ausgemusterter kid wird abgelehnt.
+     */
+    private Verified verify(String token, JWTAuthContextInfo authContextInfo) throws ParseException {
+        String kid = keyIdOf(token);
+        if (kid == null) {
+            kid = keysConfig.legacyKid();
+        }
+        Optional<SigningKeyRing.SigningKey> key = keyRing.find(kid);
+        if (key.isEmpty()) {
+            forgetKey(kid);
+            throw new ParseException("Unknown or retired JWT signing key '" + kid + "'");
+        }
+        JWTAuthContextInfo perKey = contextsByKid.computeIfAbsent(kid, k -> {
+            JWTAuthContextInfo copy = new JWTAuthContextInfo(authContextInfo);
+            copy.setPublicKeyLocation(null);
+            copy.setPublicKeyContent(null);
+            copy.setPublicVerificationKey(key.get().publicKey());
+            return copy;
+        });
+        return new Verified(kid, delegate.parse(token, perKey));
+    }
+
+    /** Verifikations-Kontext und alle gecachten Principals eines ausgemusterten Keys verwerfen */
+    private void forgetKey(String kid) {
+        if (contextsByKid.remove(kid) != null) {
+            cache.asMap().values().removeIf(v -> kid.equals(v.kid()));
+        }
+    }
+
+    private static String keyIdOf(String token) {
+        try {
+            return JsonWebStructure.fromCompactSerialization(token).getKeyIdHeaderValue();
+        } catch (JoseException e) {
+            return null;
+        }
+    }
+
+    private long remainingNanos(JWTCallerPrincipal principal) {
+        long untilExp = Duration.ofSeconds(principal.getExpirationTime())
+                .minusMillis(System.currentTimeMillis())
+                .toNanos();
+        return Math.max(0, Math.min(untilExp, maxTtl.toNanos()));
+    }
+}
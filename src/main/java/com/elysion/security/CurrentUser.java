@@ -0,0 +1,66 @@
+package com.elysion.security;
+
+import com.elysion.application.UserCache;
+import com.elysion.domain.User;
+import com.elysion.domain.UserProfile;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+import java.util.UUID;
+
+/**
+ * Der eingeloggte User des aktuellen Requests.
+ * Wird einmal pro Request per Primärschlüssel ({@code sub} im JWT = User-ID) geladen und gemerkt.
+ * Unabhängig von der E-Mail im {@code upn}, die nach einer E-Mail-Änderung veraltet sein kann.
+ */
+@RequestScoped
+public class CurrentUser {
+
+    @Inject
+    JsonWebToken jwt;
+
+    @Inject
+    UserCache userCache;
+
+    private boolean loaded;
+    private User user;
+
+    /**
+     * @return der User oder null, wenn kein gültiges Subject vorliegt bzw. der User nicht (mehr) existiert
+     */
+    public User get() {
+        if (!loaded) {
+            user = load();
+            loaded = true;
+        }
+        return user;
+    }
+
+    /**
+     * Read-only-Sicht aus dem {@link UserCache} - im Normalfall ohne DB-Zugriff.
+     *
+     * @return das Profil oder null, wenn der User nicht (mehr) existiert
+     */
+    public UserProfile profile() {
+        return userCache.get(id());
+    }
+
+    /** User-ID aus dem Token, ohne DB-Zugriff */
+    public UUID id() {
+        String subject = jwt.getSubject();
+        if (subject == null || subject.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(subject);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private User load() {
+        UUID id = id();
+        return id != null ? User.findById(id) : null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.elysion.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Schnelle Digests für Werte mit hoher Entropie (Tokens). Nicht für Passwörter verwenden!
+ */
+public final class Digests {
+
+    private Digests() {
+    }
+
+    /** SHA-256 als Hex-String (64 Zeichen) */
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
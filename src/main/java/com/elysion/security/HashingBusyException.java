@@ -0,0 +1,21 @@
+package com.elysion.security;
+
+import java.time.Duration;
+
+/**
+ * Wird geworfen, wenn der BCrypt-Pool ausgelastet ist (Queue voll oder max. Wartezeit überschritten).
+ * Wird im REST-Layer auf 503 + Retry-After gemappt.
+ */
+public class HashingBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public HashingBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
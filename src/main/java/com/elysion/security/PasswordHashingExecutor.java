@@ -0,0 +1,127 @@
+package com.elysion.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Eigener, begrenzter Thread-Pool für BCrypt (hash/verify).
+ * Die CPU-lastige Credential-Arbeit läuft hier isoliert, damit ein Login-Sturm nicht alle
+ * Worker-Threads blockiert. Ist die Queue voll oder dauert das Warten zu lange,
+ * wird sofort eine {@link HashingBusyException} geworfen (-> 503 + Retry-After).
+ */
+@ApplicationScoped
+public class PasswordHashingExecutor {
+
+    private static final Logger LOG = Logger.getLogger(PasswordHashingExecutor.class);
+
+    @Inject
+    PasswordService passwordService;
+
+    @Inject
+    MeterRegistry registry;
+
+    /** Anzahl paralleler Hash-Threads (Default: Kerne - 1, mind. 1) */
+    @ConfigProperty(name = "security.hashing.pool-size")
+    Optional<Integer> poolSize;
+
+    /** Max. Anzahl wartender Hash-Aufträge */
+    @ConfigProperty(name = "security.hashing.queue-capacity", defaultValue = "64")
+    int queueCapacity;
+
+    /** Max. Wartezeit eines Requests auf sein Hash-Ergebnis (inkl. Queue-Zeit) */
+    @ConfigProperty(name = "security.hashing.max-wait", defaultValue = "PT2S")
+    Duration maxWait;
+
+    /** Wert für den Retry-After-Header bei Überlast */
+    @ConfigProperty(name = "security.hashing.retry-after", defaultValue = "PT1S")
+    Duration retryAfter;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejectedQueueFull;
+    private Counter rejectedTimeout;
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize.orElse(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Wartende BCrypt-Aufträge")
+                .register(registry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Aktuell laufende BCrypt-Aufträge")
+                .register(registry);
+        rejectedQueueFull = Counter.builder("password.hashing.rejected")
+                .tag("reason", "queue_full")
+                .description("Abgelehnte BCrypt-Aufträge")
+                .register(registry);
+        rejectedTimeout = Counter.builder("password.hashing.rejected")
+                .tag("reason", "timeout")
+                .description("Abgelehnte BCrypt-Aufträge")
+                .register(registry);
+
+        LOG.infof("BCrypt pool started: threads=%d, queue=%d, maxWait=%s", threads, queueCapacity, maxWait);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public String hashPassword(String password, String salt) {
+        return execute(() -> passwordService.hashPassword(password, salt));
+    }
+
+    public boolean verifyPassword(String rawPassword, String salt, String storedHash) {
+        return execute(() -> passwordService.verifyPassword(rawPassword, salt, storedHash));
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw new HashingBusyException("Password hashing capacity exhausted", retryAfter);
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedTimeout.increment();
+            throw new HashingBusyException("Password hashing timed out", retryAfter);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -10,10 +10,15 @@ import java.util.Base64;
 public class PasswordService {
 
     private static final int SALT_LENGTH = 16; // Bytes
-    private static final int BCRYPT_ROUNDS = 12;
+    public static final int DEFAULT_BCRYPT_ROUNDS = 12;
+    public static final int MIN_BCRYPT_ROUNDS = 4;
+    public static final int MAX_BCRYPT_ROUNDS = 31;
 
     private final String pepper;
 
+    /** Aktueller Ziel-Cost; wird beim Start ggf. durch den {@link BcryptCostCalibrator} gesetzt */
+    private volatile int rounds = DEFAULT_BCRYPT_ROUNDS;
+
     public PasswordService() {
         this.pepper = System.getenv("PEPPER");
         if (this.pepper == null || this.pepper.isEmpty()) {
@@ -28,12 +33,53 @@ public class PasswordService {
     }
 
     public String hashPassword(String password, String salt) {
+        return hashPassword(password, salt, rounds);
+    }
+
+    /** Hash mit explizitem Cost (z.B. für die Kalibrierung) */
+    public String hashPassword(String password, String salt, int cost) {
         String combined = password + salt + pepper;
-        return BCrypt.hashpw(combined, BCrypt.gensalt(BCRYPT_ROUNDS));
+        return BCrypt.hashpw(combined, BCrypt.gensalt(cost));
     }
 
     public boolean verifyPassword(String rawPassword, String salt, String storedHash) {
         String combined = rawPassword + salt + pepper;
         return BCrypt.checkpw(combined, storedHash);
     }
-}
\ No newline at end of file
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public void setRounds(int rounds) {
+        if (rounds < MIN_BCRYPT_ROUNDS || rounds > MAX_BCRYPT_ROUNDS) {
+            throw new IllegalArgumentException("BCrypt cost out of range: " + rounds);
+        }
+        this.rounds = rounds;
+    }
+
+    /**
+     * Liest den Cost aus einem gespeicherten Hash ("$2a$NN$...").
+     * Gibt -1 zurück, wenn das Format nicht passt.
+     */
+    public static int costOf(String storedHash) {
+        if (storedHash == null || storedHash.length() < 7 || storedHash.charAt(0) != '$') {
+            return -1;
+        }
+        int sep = storedHash.indexOf('$', 1);
+        if (sep < 0 || storedHash.length() < sep + 4 || storedHash.charAt(sep + 3) != '$') {
+            return -1;
+        }
+        char d1 = storedHash.charAt(sep + 1);
+        char d2 = storedHash.charAt(sep + 2);
+        if (!Character.isDigit(d1) || !Character.isDigit(d2)) {
+            return -1;
+        }
+        return (d1 - '0') * 10 + (d2 - '0');
+    }
+
+    /** true, wenn der gespeicherte Hash nicht mit dem aktuellen Ziel-Cost erzeugt wurde */
+    public boolean needsRehash(String storedHash) {
+        return costOf(storedHash) != rounds;
+    }
+}
@@ -0,0 +1,21 @@
+package com.elysion.security;
+
+import java.time.Duration;
+
+/**
+ * Wird geworfen, wenn ein Client (IP oder E-Mail) sein Limit überschritten hat.
+ * Wird im REST-Layer auf 429 + Retry-After gemappt.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
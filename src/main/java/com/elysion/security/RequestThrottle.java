@@ -0,0 +1,125 @@
+package com.elysion.security;
+
+import com.elysion.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+
+/**
+ * Drosselt Login und Resend-Activation je Client-IP und je (normalisierter) E-Mail,
+ * bevor DB-Lookup oder BCrypt laufen.
+ */
+@ApplicationScoped
+public class RequestThrottle {
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "security.rate-limit.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "security.rate-limit.max-keys", defaultValue = "100000")
+    int maxKeys;
+
+    @ConfigProperty(name = "security.rate-limit.stripes", defaultValue = "16")
+    int stripes;
+
+    @ConfigProperty(name = "security.rate-limit.login.ip.limit", defaultValue = "30")
+    int loginIpLimit;
+
+    @ConfigProperty(name = "security.rate-limit.login.ip.window", defaultValue = "PT1M")
+    Duration loginIpWindow;
+
+    @ConfigProperty(name = "security.rate-limit.login.email.limit", defaultValue = "10")
+    int loginEmailLimit;
+
+    @ConfigProperty(name = "security.rate-limit.login.email.window", defaultValue = "PT5M")
+    Duration loginEmailWindow;
+
+    @ConfigProperty(name = "security.rate-limit.resend.ip.limit", defaultValue = "10")
+    int resendIpLimit;
+
+    @ConfigProperty(name = "security.rate-limit.resend.ip.window", defaultValue = "PT15M")
+    Duration resendIpWindow;
+
+    @ConfigProperty(name = "security.rate-limit.resend.email.limit", defaultValue = "3")
+    int resendEmailLimit;
+
+    @ConfigProperty(name = "security.rate-limit.resend.email.window", defaultValue = "PT15M")
+    Duration resendEmailWindow;
+
+    private KeyClass loginIp;
+    private KeyClass loginEmail;
+    private KeyClass resendIp;
+    private KeyClass resendEmail;
+
+    @PostConstruct
+    void init() {
+        loginIp = new KeyClass("login-ip", loginIpLimit, loginIpWindow);
+        loginEmail = new KeyClass("login-email", loginEmailLimit, loginEmailWindow);
+        resendIp = new KeyClass("resend-ip", resendIpLimit, resendIpWindow);
+        resendEmail = new KeyClass("resend-email", resendEmailLimit, resendEmailWindow);
+    }
+
+    /** @throws RateLimitExceededException wenn IP oder E-Mail über dem Login-Limit liegen */
+    public void checkLogin(String clientIp, String email) {
+        check(loginIp, clientIp);
+        check(loginEmail, User.normalizeEmail(email));
+    }
+
+    /** @throws RateLimitExceededException wenn IP oder E-Mail über dem Resend-Limit liegen */
+    public void checkResendActivation(String clientIp, String email) {
+        check(resendIp, clientIp);
+        check(resendEmail, User.normalizeEmail(email));
+    }
+
+    private void check(KeyClass keyClass, String key) {
+        if (!enabled || key == null || key.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (keyClass.limiter.tryAcquire(key, now)) {
+            keyClass.allowed.increment();
+        } else {
+            keyClass.rejected.increment();
+            throw new RateLimitExceededException("Rate limit exceeded (" + keyClass.name + ")",
+                    keyClass.limiter.retryAfter(now));
+        }
+    }
+
+    /** Limiter + Metriken einer Key-Klasse (z.B. "login-ip") */
+    private final class KeyClass {
+        final String name;
+        final SlidingWindowRateLimiter limiter;
+        final Counter allowed;
+        final Counter rejected;
+
+        KeyClass(String name, int limit, Duration window) {
+            this.name = name;
+            this.limiter = new SlidingWindowRateLimiter(limit, window, maxKeys, stripes);
+            this.allowed = Counter.builder("rate_limit.requests")
+                    .tag("key_class", name).tag("result", "allowed")
+                    .register(registry);
+            this.rejected = Counter.builder("rate_limit.requests")
+                    .tag("key_class", name).tag("result", "rejected")
+                    .register(registry);
+            Gauge.builder("rate_limit.tracked_keys", limiter, SlidingWindowRateLimiter::trackedKeys)
+                    .tag("key_class", name)
+                    .register(registry);
+            FunctionCounter.builder("rate_limit.evictions", limiter, SlidingWindowRateLimiter::evictions)
+                    .tag("key_class", name)
+                    .register(registry);
+            FunctionCounter.builder("rate_limit.overflows", limiter, SlidingWindowRateLimiter::overflows)
+                    .description("Neue Keys ungezählt durchgelassen, weil die Obergrenze erreicht war")
+                    .tag("key_class", name)
+                    .register(registry);
+        }
+    }
+}
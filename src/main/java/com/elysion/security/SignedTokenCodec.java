@@ -0,0 +1,143 @@
+package com.elysion.security;
+
+import com.elysion.domain.TokenPurpose;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Selbsttragende Einmal-Tokens: {@code base64url(payload).base64url(HMAC-SHA256(payload))}.
+ * <p>
+ * Payload: Nonce (= ID der {@code user_token}-Zeile), User-ID, Zweck, Ablauf. Kaputte, gefälschte und
+ * abgelaufene Tokens werden so ohne DB-Zugriff abgewiesen; nur gültig signierte Tokens führen zu einem
+ * Lookup per Primärschlüssel, der die Einmaligkeit sicherstellt.
+ */
+@ApplicationScoped
+public class SignedTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    /** version + nonce + userId + purpose + expiresAt */
+    private static final int PAYLOAD_BYTES = 1 + 16 + 16 + 1 + 8;
+    private static final int MAC_BYTES = 32;
+    /** Base64url ohne Padding */
+    private static final int PAYLOAD_CHARS = 56;
+    private static final int TOKEN_CHARS = PAYLOAD_CHARS + 1 + 43;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final TokenPurpose[] PURPOSES = TokenPurpose.values();
+
+    @Inject
+    MeterRegistry registry;
+
+    /** Gemeinsames Secret aller Instanzen; daraus wird ein eigener Schlüssel abgeleitet */
+    @ConfigProperty(name = "security.user-token.secret")
+    String secret;
+
+    private SecretKeySpec key;
+    private Counter malformed;
+    private Counter forged;
+    private Counter expired;
+
+    /** Verifizierter Inhalt eines Tokens */
+    public record Claims(UUID nonce, UUID userId, TokenPurpose purpose, Instant expiresAt) {}
+
+    @PostConstruct
+    void init() {
+        try {
+            // Domain Separation: das Secret wird nie direkt als HMAC-Key verwendet
+            Mac kdf = Mac.getInstance(ALGORITHM);
+            kdf.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            key = new SecretKeySpec(kdf.doFinal("elysion-user-token-v1".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+        malformed = registry.counter("user_token.rejected", "reason", "malformed");
+        forged = registry.counter("user_token.rejected", "reason", "signature");
+        expired = registry.counter("user_token.rejected", "reason", "expired");
+    }
+
+    public String sign(Claims claims) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES)
+                .put(VERSION)
+                .putLong(claims.nonce().getMostSignificantBits())
+                .putLong(claims.nonce().getLeastSignificantBits())
+                .putLong(claims.userId().getMostSignificantBits())
+                .putLong(claims.userId().getLeastSignificantBits())
+                .put((byte) claims.purpose().ordinal())
+                .putLong(claims.expiresAt().getEpochSecond());
+        byte[] bytes = payload.array();
+        return ENCODER.encodeToString(bytes) + '.' + ENCODER.encodeToString(mac(bytes));
+    }
+
+    /**
+     * Prüft Format, Signatur und Ablauf - rein im Speicher.
+     *
+     * @throws IllegalArgumentException kaputt oder gefälscht
+     * @throws IllegalStateException    abgelaufen
+     */
+    public Claims verify(String token) {
+        byte[] payload;
+        byte[] signature;
+        int dot = token == null ? -1 : token.indexOf('.');
+        // Längen vorab prüfen, damit beliebig große Eingaben nicht dekodiert werden
+        if (dot != PAYLOAD_CHARS || token.length() != TOKEN_CHARS) {
+            malformed.increment();
+            throw new IllegalArgumentException("Invalid token");
+        }
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            malformed.increment();
+            throw new IllegalArgumentException("Invalid token");
+        }
+        if (payload.length != PAYLOAD_BYTES || signature.length != MAC_BYTES || payload[0] != VERSION) {
+            malformed.increment();
+            throw new IllegalArgumentException("Invalid token");
+        }
+        if (!MessageDigest.isEqual(mac(payload), signature)) {
+            forged.increment();
+            throw new IllegalArgumentException("Invalid token");
+        }
+
+        ByteBuffer buf = ByteBuffer.wrap(payload, 1, PAYLOAD_BYTES - 1);
+        UUID nonce = new UUID(buf.getLong(), buf.getLong());
+        UUID userId = new UUID(buf.getLong(), buf.getLong());
+        int purpose = buf.get();
+        Instant expiresAt = Instant.ofEpochSecond(buf.getLong());
+        if (purpose < 0 || purpose >= PURPOSES.length) {
+            malformed.increment();
+            throw new IllegalArgumentException("Invalid token");
+        }
+        if (expiresAt.isBefore(Instant.now())) {
+            expired.increment();
+            throw new IllegalStateException("Token expired");
+        }
+        return new Claims(nonce, userId, PURPOSES[purpose], expiresAt);
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            // Mac ist nicht thread-safe; Instanz pro Aufruf ist billig gegenüber Request-Overhead
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 not available", e);
+        }
+    }
+}
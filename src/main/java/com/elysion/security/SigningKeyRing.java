@@ -0,0 +1,99 @@
+package com.elysion.security;
+
+import com.elysion.config.SigningKeysConfig;
+import io.smallrye.jwt.util.KeyUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Alle konfigurierten JWT-Signaturschlüssel.
+ * Signiert wird mit dem jüngsten aktiven Key; alle nicht ausgemusterten Keys werden
+ * veröffentlicht (JWKS) und beim Verifizieren akzeptiert.
+ */
+@ApplicationScoped
+public class SigningKeyRing {
+
+    private static final Logger LOG = Logger.getLogger(SigningKeyRing.class);
+
+    @Inject
+    SigningKeysConfig config;
+
+    private List<SigningKey> keys;
+
+    public record SigningKey(String kid, PrivateKey privateKey, RSAPublicKey publicKey,
+                             Instant activeFrom, Instant retireAt) {
+
+        boolean published(Instant now) {
+            return retireAt == null || now.isBefore(retireAt);
+        }
+
+        boolean active(Instant now) {
+            return published(now) && !now.isBefore(activeFrom);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        List<SigningKey> loaded = new ArrayList<>();
+        for (Map.Entry<String, SigningKeysConfig.Key> e : config.keys().entrySet()) {
+            SigningKeysConfig.Key cfg = e.getValue();
+            try {
+                PrivateKey privateKey = KeyUtils.readPrivateKey(cfg.location());
+                loaded.add(new SigningKey(e.getKey(), privateKey, publicKeyOf(privateKey),
+                        cfg.activeFrom().orElse(Instant.EPOCH), cfg.retireAt().orElse(null)));
+            } catch (Exception ex) {
+                throw new IllegalStateException("Cannot load JWT signing key '" + e.getKey() + "'", ex);
+            }
+        }
+        if (loaded.isEmpty()) {
+            throw new IllegalStateException("No JWT signing keys configured (security.jwt.keys)");
+        }
+        loaded.sort(Comparator.comparing(SigningKey::activeFrom).thenComparing(SigningKey::kid));
+        keys = List.copyOf(loaded);
+        LOG.infof("Loaded %d JWT signing key(s), signing with kid=%s", keys.size(), current().kid());
+    }
+
+    /** Key, mit dem aktuell signiert wird (jüngster aktiver) */
+    public SigningKey current() {
+        Instant now = Instant.now();
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            if (keys.get(i).active(now)) {
+                return keys.get(i);
+            }
+        }
+        throw new IllegalStateException("No active JWT signing key");
+    }
+
+    /** Alle Keys, die veröffentlicht und zur Verifikation akzeptiert werden */
+    public List<SigningKey> published() {
+        Instant now = Instant.now();
+        return keys.stream().filter(k -> k.published(now)).toList();
+    }
+
+    public Optional<SigningKey> find(String kid) {
+        Instant now = Instant.now();
+        return keys.stream().filter(k -> k.kid().equals(kid) && k.published(now)).findFirst();
+    }
+
+    private static RSAPublicKey publicKeyOf(PrivateKey privateKey) throws Exception {
+        if (!(privateKey instanceof RSAPrivateCrtKey crt)) {
+            throw new IllegalArgumentException("Only RSA (CRT) private keys are supported");
+        }
+        return (RSAPublicKey) KeyFactory.getInstance("RSA")
+                .generatePublic(new RSAPublicKeySpec(crt.getModulus(), crt.getPublicExponent()));
+    }
+}
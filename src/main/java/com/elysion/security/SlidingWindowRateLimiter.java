@@ -0,0 +1,152 @@
+package com.elysion.security;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-freier Sliding-Window-Zähler (gewichtetes Vor-Fenster + aktuelles Fenster) je Key.
+ * <p>
+ * Der Zustand eines Keys steckt in einem einzigen {@link AtomicLong}
+ * (Fenster-Nummer 32 Bit | Zähler Vor-Fenster 16 Bit | Zähler aktuelles Fenster 16 Bit)
+ * und wird per CAS fortgeschrieben. Die Keys sind auf mehrere Maps (Stripes) verteilt;
+ * jede Stripe hat eine feste Obergrenze. Ist sie voll, werden abgelaufene Einträge entfernt
+ * (höchstens einmal je Fenster und Stripe); reicht das nicht, wird der neue Key durchgelassen,
+ * aber nicht gemerkt (fail open - die übrigen Limits, z.B. je IP, greifen weiter). Abweisen würde
+ * jeden legitimen neuen Key aussperren, sobald jemand die Stripe mit Zufalls-Keys gefüllt hat.
+ * Laufende Zähler werden nie verdrängt - sonst könnte ein Angreifer mit rotierenden Keys
+ * das Limit eines anderen Keys zurücksetzen. Der Speicherbedarf bleibt auch bei zufälligen
+ * Keys (z.B. rotierende IPs) begrenzt.
+ */
+public class SlidingWindowRateLimiter {
+
+    private static final long COUNT_MASK = 0xFFFFL;
+    private static final long EPOCH_MASK = 0xFFFFFFFFL;
+
+    private final int limit;
+    private final long windowMillis;
+    private final int maxKeysPerStripe;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    /** Fenster-Nummer der letzten Bereinigung je Stripe */
+    private final AtomicLongArray lastSweep;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SlidingWindowRateLimiter(int limit, Duration window, int maxKeys, int stripeCount) {
+        if (limit < 1 || limit > COUNT_MASK) {
+            throw new IllegalArgumentException("limit must be between 1 and " + COUNT_MASK);
+        }
+        if (Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("stripeCount must be a power of two");
+        }
+        this.limit = limit;
+        this.windowMillis = window.toMillis();
+        this.maxKeysPerStripe = Math.max(1, maxKeys / stripeCount);
+        this.stripes = new ConcurrentHashMap[stripeCount];
+        this.lastSweep = new AtomicLongArray(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Zählt einen Versuch für den Key.
+     *
+     * @return true, wenn der Versuch erlaubt ist (auch für neue Keys bei voller Stripe, dann ungezählt);
+     *         false, wenn das Limit erreicht ist (wird dann nicht gezählt)
+     */
+    public boolean tryAcquire(String key, long nowMillis) {
+        long epoch = (nowMillis / windowMillis) & EPOCH_MASK;
+        double elapsed = (nowMillis % windowMillis) / (double) windowMillis;
+
+        int index = stripeIndex(key);
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[index];
+        AtomicLong state = stripe.get(key);
+        if (state == null) {
+            // Obergrenze nur ungefähr (parallele Neuanlagen), dafür ohne Lock
+            if (stripe.size() >= maxKeysPerStripe && !makeRoom(index, epoch)) {
+                overflows.increment();
+                return true;
+            }
+            state = stripe.computeIfAbsent(key, k -> new AtomicLong(epoch << 32));
+        }
+
+        while (true) {
+            long s = state.get();
+            long e = s >>> 32;
+            long prev;
+            long cur;
+            if (e == epoch) {
+                prev = (s >>> 16) & COUNT_MASK;
+                cur = s & COUNT_MASK;
+            } else if (e == ((epoch - 1) & EPOCH_MASK)) {
+                prev = s & COUNT_MASK;
+                cur = 0;
+            } else {
+                prev = 0;
+                cur = 0;
+            }
+
+            double estimate = prev * (1.0 - elapsed) + cur;
+            if (estimate + 1 > limit) {
+                return false;
+            }
+            long next = (epoch << 32) | (prev << 16) | Math.min(cur + 1, COUNT_MASK);
+            if (state.compareAndSet(s, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** Zeit bis zum nächsten Fensterwechsel (für Retry-After) */
+    public Duration retryAfter(long nowMillis) {
+        return Duration.ofMillis(windowMillis - (nowMillis % windowMillis));
+    }
+
+    public long trackedKeys() {
+        long sum = 0;
+        for (ConcurrentHashMap<String, AtomicLong> stripe : stripes) {
+            sum += stripe.size();
+        }
+        return sum;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** Neue Keys, die ungezählt durchgelassen wurden, weil ihre Stripe voll war */
+    public long overflows() {
+        return overflows.sum();
+    }
+
+    private int stripeIndex(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (stripes.length - 1);
+    }
+
+    /**
+     * Entfernt Keys, deren letzter Zugriff älter als das Vor-Fenster ist (sie tragen nichts mehr bei).
+     * Innerhalb eines Fensters kann dabei nichts Neues frei werden, daher höchstens ein Scan je Fenster.
+     *
+     * @return true, wenn danach wieder Platz ist
+     */
+    private boolean makeRoom(int index, long epoch) {
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[index];
+        long swept = lastSweep.get(index);
+        if (swept != epoch && lastSweep.compareAndSet(index, swept, epoch)) {
+            long previous = (epoch - 1) & EPOCH_MASK;
+            stripe.values().removeIf(state -> {
+                long e = state.get() >>> 32;
+                boolean stale = e != epoch && e != previous;
+                if (stale) evictions.increment();
+                return stale;
+            });
+        }
+        return stripe.size() < maxKeysPerStripe;
+    }
+}
@@ -0,0 +1,30 @@
+package com.elysion.application;
+
+import io.quarkus.arc.profile.IfBuildProfile;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sammelt versendete Mails im Speicher; ersetzt im Test-Profil den {@link LogMailSender}.
+ */
+@IfBuildProfile("test")
+@ApplicationScoped
+public class InMemoryMailSender implements MailSender {
+
+    private final List<OutgoingMail> sent = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(OutgoingMail mail) {
+        sent.add(mail);
+    }
+
+    public List<OutgoingMail> sent() {
+        return List.copyOf(sent);
+    }
+
+    public void clear() {
+        sent.clear();
+    }
+}
@@ -0,0 +1,158 @@
+package com.elysion.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** {@link BitSet} dient als Orakel */
+class SparseBitmapTest {
+
+    private static final int BLOCK = 1 << 16;
+
+    /** Werte um Blockgrenzen und Wortgrenzen herum */
+    private static final int[] EDGES = {
+            0, 1, 63, 64, 65, BLOCK - 1, BLOCK, BLOCK + 1, 2 * BLOCK - 64, 2 * BLOCK - 1, 2 * BLOCK,
+            5 * BLOCK + 4711, 9 * BLOCK - 1
+    };
+
+    private static void assertSame(BitSet expected, SparseBitmap actual, int upTo) {
+        assertEquals(expected.cardinality(), actual.cardinality(), "cardinality");
+        for (int i = 0; i < upTo; i++) {
+            if (expected.get(i) != actual.get(i)) {
+                throw new AssertionError("bit " + i + ": expected " + expected.get(i));
+            }
+        }
+    }
+
+    private static void setBoth(BitSet b, SparseBitmap s, int id) {
+        b.set(id);
+        s.set(id);
+    }
+
+    /** Zufällige Bits in den ersten {@code blocks} Blöcken, einzelne Blöcke bleiben leer */
+    private static void fill(Random r, BitSet b, SparseBitmap s, int blocks, int bitsPerBlock) {
+        for (int block = 0; block < blocks; block++) {
+            if (r.nextInt(4) == 0) {
+                continue;
+            }
+            for (int i = 0; i < bitsPerBlock; i++) {
+                setBoth(b, s, block * BLOCK + r.nextInt(BLOCK));
+            }
+        }
+    }
+
+    @Test
+    void setGetClearAcrossBlockBoundaries() {
+        BitSet expected = new BitSet();
+        SparseBitmap bitmap = new SparseBitmap();
+        for (int id : EDGES) {
+            setBoth(expected, bitmap, id);
+        }
+        assertSame(expected, bitmap, 10 * BLOCK);
+
+        for (int id : new int[]{BLOCK - 1, BLOCK, 2 * BLOCK}) {
+            expected.clear(id);
+            bitmap.clear(id);
+        }
+        // Löschen außerhalb belegter Blöcke ist ein No-op
+        bitmap.clear(20 * BLOCK);
+        bitmap.clear(3 * BLOCK);
+        assertSame(expected, bitmap, 10 * BLOCK);
+        assertFalse(bitmap.get(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void emptyBitmap() {
+        SparseBitmap empty = new SparseBitmap();
+        assertEquals(0, empty.cardinality());
+        assertFalse(empty.get(0));
+        assertEquals(0, empty.copy().cardinality());
+        assertEquals(0, empty.andCardinality(new SparseBitmap()));
+    }
+
+    @Test
+    void setOperationsMatchBitSetWithDifferentLengths() {
+        Random r = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            BitSet a = new BitSet();
+            BitSet b = new BitSet();
+            SparseBitmap sa = new SparseBitmap();
+            SparseBitmap sb = new SparseBitmap();
+            // Operanden mit unterschiedlich vielen Blöcken, in beide Richtungen
+            int blocksA = 1 + r.nextInt(6);
+            int blocksB = 1 + r.nextInt(6);
+            fill(r, a, sa, blocksA, 200);
+            fill(r, b, sb, blocksB, 200);
+            int upTo = 7 * BLOCK;
+
+            BitSet and = (BitSet) a.clone();
+            and.and(b);
+            assertSame(and, sa.copy().and(sb), upTo);
+            assertEquals(and.cardinality(), sa.andCardinality(sb));
+            assertEquals(and.cardinality(), sb.andCardinality(sa));
+
+            BitSet or = (BitSet) a.clone();
+            or.or(b);
+            assertSame(or, sa.copy().or(sb), upTo);
+
+            BitSet andNot = (BitSet) a.clone();
+            andNot.andNot(b);
+            assertSame(andNot, sa.copy().andNot(sb), upTo);
+
+            // Operanden bleiben unverändert
+            assertSame(a, sa, upTo);
+            assertSame(b, sb, upTo);
+        }
+    }
+
+    @Test
+    void blocksThatBecomeEmptyAreDroppedAndReusable() {
+        SparseBitmap a = new SparseBitmap();
+        SparseBitmap b = new SparseBitmap();
+        a.set(5);
+        a.set(BLOCK + 5);
+        b.set(6);
+        b.set(BLOCK + 5);
+        long full = a.sizeInBytes();
+
+        // Block 0 wird durch and leer, Block 1 durch andNot
+        SparseBitmap and = a.copy().and(b);
+        assertEquals(1, and.cardinality());
+        assertTrue(and.get(BLOCK + 5));
+        assertTrue(and.sizeInBytes() < full, "empty block freed");
+
+        SparseBitmap andNot = a.copy().andNot(b);
+        assertEquals(1, andNot.cardinality());
+        assertTrue(andNot.get(5));
+        assertTrue(andNot.sizeInBytes() < full, "empty block freed");
+
+        // Nach dem Freigeben verhalten sich die Blöcke wie nie belegt
+        and.set(7);
+        assertTrue(and.get(7));
+        assertFalse(and.get(5));
+        assertEquals(0, a.copy().andNot(a).cardinality());
+        assertEquals(0, a.copy().andNot(a).andCardinality(a));
+        assertEquals(2, a.copy().andNot(a).or(a).cardinality());
+    }
+
+    @Test
+    void copyIsIndependent() {
+        SparseBitmap a = new SparseBitmap();
+        a.set(1);
+        SparseBitmap c = a.copy();
+        c.set(2);
+        a.clear(1);
+        assertTrue(c.get(1));
+        assertFalse(a.get(2));
+
+        // or übernimmt Blöcke als Kopie, nicht per Referenz
+        SparseBitmap target = new SparseBitmap().or(c);
+        c.clear(1);
+        assertTrue(target.get(1));
+    }
+}
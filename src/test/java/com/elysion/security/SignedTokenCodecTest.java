@@ -0,0 +1,157 @@
+package com.elysion.security;
+
+import com.elysion.domain.TokenPurpose;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignedTokenCodecTest {
+
+    private static final String SECRET = "test-secret";
+
+    private SimpleMeterRegistry registry;
+    private SignedTokenCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        codec = codec(SECRET);
+    }
+
+    private SignedTokenCodec codec(String secret) {
+        SignedTokenCodec c = new SignedTokenCodec();
+        c.registry = registry;
+        c.secret = secret;
+        c.init();
+        return c;
+    }
+
+    private static SignedTokenCodec.Claims claims(Instant expiresAt) {
+        return new SignedTokenCodec.Claims(UUID.randomUUID(), UUID.randomUUID(), TokenPurpose.EMAIL_CHANGE, expiresAt);
+    }
+
+    private static Instant inOneHour() {
+        return Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private double rejected(String reason) {
+        return registry.counter("user_token.rejected", "reason", reason).count();
+    }
+
+    /** Ersetzt ein Zeichen durch ein anderes gültiges Base64url-Zeichen */
+    private static String flip(String token, int index) {
+        char c = token.charAt(index);
+        return token.substring(0, index) + (c == 'A' ? 'B' : 'A') + token.substring(index + 1);
+    }
+
+    /** Signiert beliebige Payload-Bytes wie der Codec (Schlüsselableitung aus dem Secret) */
+    private static String signRaw(byte[] payload) throws Exception {
+        Mac kdf = Mac.getInstance("HmacSHA256");
+        kdf.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(kdf.doFinal("elysion-user-token-v1".getBytes(StandardCharsets.UTF_8)), "HmacSHA256"));
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        return enc.encodeToString(payload) + '.' + enc.encodeToString(mac.doFinal(payload));
+    }
+
+    private static byte[] payload(byte version, int purpose, Instant expiresAt) {
+        return ByteBuffer.allocate(42)
+                .put(version)
+                .putLong(1).putLong(2)
+                .putLong(3).putLong(4)
+                .put((byte) purpose)
+                .putLong(expiresAt.getEpochSecond())
+                .array();
+    }
+
+    @Test
+    void roundTrip() {
+        SignedTokenCodec.Claims claims = claims(inOneHour());
+        assertEquals(claims, codec.verify(codec.sign(claims)));
+    }
+
+    @Test
+    void changedPayloadCharacterIsRejectedAsSignature() {
+        String token = codec.sign(claims(inOneHour()));
+        assertThrows(IllegalArgumentException.class, () -> codec.verify(flip(token, 20)));
+        assertEquals(1, rejected("signature"));
+        assertEquals(0, rejected("malformed"));
+    }
+
+    @Test
+    void changedSignatureCharacterIsRejectedAsSignature() {
+        String token = codec.sign(claims(inOneHour()));
+        assertThrows(IllegalArgumentException.class, () -> codec.verify(flip(token, token.indexOf('.') + 5)));
+        assertEquals(1, rejected("signature"));
+    }
+
+    @Test
+    void otherSecretIsRejectedAsSignature() {
+        String token = codec("other-secret").sign(claims(inOneHour()));
+        assertThrows(IllegalArgumentException.class, () -> codec.verify(token));
+        assertEquals(1, rejected("signature"));
+    }
+
+    @Test
+    void wrongLengthIsRejectedAsMalformed() {
+        String token = codec.sign(claims(inOneHour()));
+        for (String bad : new String[]{null, "", token + "A", token.substring(1), token.replace('.', 'A')}) {
+            assertThrows(IllegalArgumentException.class, () -> codec.verify(bad));
+        }
+        assertEquals(5, rejected("malformed"));
+        assertEquals(0, rejected("signature"));
+    }
+
+    @Test
+    void invalidBase64IsRejectedAsMalformed() {
+        String token = codec.sign(claims(inOneHour()));
+        String bad = token.substring(0, 10) + '*' + token.substring(11);
+        assertThrows(IllegalArgumentException.class, () -> codec.verify(bad));
+        assertEquals(1, rejected("malformed"));
+    }
+
+    @Test
+    void unknownVersionIsRejectedAsMalformed() throws Exception {
+        String token = signRaw(payload((byte) 2, 0, inOneHour()));
+        assertThrows(IllegalArgumentException.class, () -> codec.verify(token));
+        assertEquals(1, rejected("malformed"));
+    }
+
+    @Test
+    void expiredTokenThrowsIllegalState() {
+        String token = codec.sign(claims(Instant.now().minus(1, ChronoUnit.MINUTES)));
+        assertThrows(IllegalStateException.class, () -> codec.verify(token));
+        assertEquals(1, rejected("expired"));
+    }
+
+    @Test
+    void outOfRangePurposeIsRejected() throws Exception {
+        for (int purpose : new int[]{TokenPurpose.values().length, 0xFF}) {
+            String token = signRaw(payload((byte) 1, purpose, inOneHour()));
+            assertThrows(IllegalArgumentException.class, () -> codec.verify(token));
+        }
+        assertEquals(2, rejected("malformed"));
+        assertEquals(0, rejected("signature"));
+    }
+
+    @Test
+    void signedPayloadMatchesReferenceLayout() throws Exception {
+        // Gegenprobe für signRaw: ein gültiges, von Hand gebautes Token wird akzeptiert
+        SignedTokenCodec.Claims claims = codec.verify(signRaw(payload((byte) 1, 1, inOneHour())));
+        assertEquals(new UUID(1, 2), claims.nonce());
+        assertEquals(new UUID(3, 4), claims.userId());
+        assertEquals(TokenPurpose.EMAIL_CHANGE, claims.purpose());
+    }
+}